@@ -0,0 +1,53 @@
+package edu.uab.cis.search.maze;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Solver.Engine#JUMP_POINT} against {@link Solver.Engine#INDEXED}
+ * on large open grids, where every step of a vertical scan probes its row on
+ * both sides and the cost of those probes decides whether jumping pays off.
+ * The goal sits off the grid's last row and column, so that no scan runs into
+ * it early.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class JumpPointBenchmark {
+
+  @Param({ "1000", "4000" })
+  public int size;
+
+  @Param({ "JUMP_POINT", "INDEXED" })
+  public Solver.Engine engine;
+
+  private Maze maze;
+  private SolverOptions options;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Grid grid = new Grid(this.size, this.size, new long[Grid.words(this.size, this.size)]);
+    this.maze = new Maze(grid, new Square(0, 0), new Square(this.size * 3 / 4, this.size * 2 / 3));
+    this.options = new SolverOptions().engine(this.engine).recordExplored(false);
+  }
+
+  @Benchmark
+  public Solver solve() {
+    return new Solver(this.maze, this.options);
+  }
+}
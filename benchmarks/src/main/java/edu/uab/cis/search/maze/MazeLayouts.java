@@ -0,0 +1,148 @@
+package edu.uab.cis.search.maze;
+
+import java.util.Random;
+
+/**
+ * Generates the maze layouts used by the benchmarks. Obstacles are written
+ * straight into a packed {@link Grid} bitset so that even 10^4 x 10^4 mazes can be built
+ * without a {@code Set<Square>}.
+ */
+public final class MazeLayouts {
+
+  /**
+   * The kinds of layout that can be generated.
+   */
+  public enum Layout {
+    /** No obstacles; start and goal in opposite corners. */
+    OPEN,
+    /** 10% of squares blocked at random. */
+    RANDOM_10,
+    /** 20% of squares blocked at random. */
+    RANDOM_20,
+    /** 30% of squares blocked at random. */
+    RANDOM_30,
+    /** A single corridor snaking back and forth across every other row. */
+    SERPENTINE,
+    /** A single corridor spiralling inwards from the top left corner. */
+    SPIRAL
+  }
+
+  private MazeLayouts() {
+  }
+
+  /**
+   * Creates a square maze of the given layout.
+   * 
+   * @param layout
+   *          The kind of layout to generate.
+   * @param size
+   *          The number of rows and of columns.
+   * @param seed
+   *          The seed for random layouts.
+   */
+  static Maze create(Layout layout, int size, long seed) {
+    switch (layout) {
+    case RANDOM_10:
+      return random(size, 0.1, seed);
+    case RANDOM_20:
+      return random(size, 0.2, seed);
+    case RANDOM_30:
+      return random(size, 0.3, seed);
+    case SERPENTINE:
+      return serpentine(size);
+    case SPIRAL:
+      return spiral(size);
+    default:
+      Grid grid = new Grid(size, size, new long[Grid.words(size, size)]);
+      return new Maze(grid, new Square(0, 0), new Square(size - 1, size - 1));
+    }
+  }
+
+  /**
+   * Blocks squares at random, keeping the top row and the right column clear
+   * so that the goal is always reachable.
+   */
+  private static Maze random(int size, double density, long seed) {
+    long[] bits = new long[Grid.words(size, size)];
+    Random random = new Random(seed);
+    for (int row = 1; row < size; ++row) {
+      for (int column = 0; column < size - 1; ++column) {
+        if (random.nextDouble() < density) {
+          set(bits, row * size + column);
+        }
+      }
+    }
+    return new Maze(new Grid(size, size, bits), new Square(size - 1, 0), new Square(0, size - 1));
+  }
+
+  /**
+   * Blocks every odd row except for one square, alternating between the last
+   * and the first column, so that the only path visits every even row.
+   */
+  private static Maze serpentine(int size) {
+    long[] bits = new long[Grid.words(size, size)];
+    for (int row = 1; row < size; row += 2) {
+      int gap = (row / 2) % 2 == 0 ? size - 1 : 0;
+      for (int column = 0; column < size; ++column) {
+        if (column != gap) {
+          set(bits, row * size + column);
+        }
+      }
+    }
+    int last = (size - 1) / 2 * 2;
+    int goalColumn = (last / 2) % 2 == 0 ? size - 1 : 0;
+    return new Maze(new Grid(size, size, bits), new Square(0, 0), new Square(last, goalColumn));
+  }
+
+  /**
+   * Carves a corridor that turns right whenever it would run into itself,
+   * leaving one wall square between neighboring lanes, and puts the goal at
+   * the center end of the corridor.
+   */
+  private static Maze spiral(int size) {
+    long[] bits = new long[Grid.words(size, size)];
+    for (int i = 0; i < bits.length; ++i) {
+      bits[i] = -1L;
+    }
+    int[] rowSteps = { 0, 1, 0, -1 };
+    int[] columnSteps = { 1, 0, -1, 0 };
+    int row = 0;
+    int column = 0;
+    int direction = 0;
+    clear(bits, 0);
+    boolean turned = false;
+    while (true) {
+      int nextRow = row + rowSteps[direction];
+      int nextColumn = column + columnSteps[direction];
+      int afterRow = nextRow + rowSteps[direction];
+      int afterColumn = nextColumn + columnSteps[direction];
+      boolean inside = nextRow >= 0 && nextRow < size && nextColumn >= 0 && nextColumn < size;
+      boolean afterCarved = afterRow >= 0 && afterRow < size && afterColumn >= 0 && afterColumn < size
+          && !get(bits, afterRow * size + afterColumn);
+      if (inside && !afterCarved && get(bits, nextRow * size + nextColumn)) {
+        row = nextRow;
+        column = nextColumn;
+        clear(bits, row * size + column);
+        turned = false;
+      } else if (turned) {
+        break;
+      } else {
+        direction = (direction + 1) % 4;
+        turned = true;
+      }
+    }
+    return new Maze(new Grid(size, size, bits), new Square(0, 0), new Square(row, column));
+  }
+
+  private static boolean get(long[] bits, int index) {
+    return (bits[index >>> 6] & (1L << index)) != 0;
+  }
+
+  private static void set(long[] bits, int index) {
+    bits[index >>> 6] |= 1L << index;
+  }
+
+  private static void clear(long[] bits, int index) {
+    bits[index >>> 6] &= ~(1L << index);
+  }
+}
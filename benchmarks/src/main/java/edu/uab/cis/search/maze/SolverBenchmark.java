@@ -0,0 +1,71 @@
+package edu.uab.cis.search.maze;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code new Solver(maze)} on generated layouts across grid sizes and
+ * solver configurations. Run with {@code -prof gc} for allocation rates.
+ * 
+ * The full parameter matrix is large, and the node engine needs several
+ * gigabytes of heap on the largest random mazes, so narrow it with
+ * {@code -p}, e.g. {@code -p size=1000 -p layout=OPEN,SPIRAL}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class SolverBenchmark {
+
+  /**
+   * The solver configurations being compared.
+   */
+  public enum Configuration {
+    NODE(new SolverOptions().engine(Solver.Engine.NODE)),
+    INDEXED_HEAP(new SolverOptions().engine(Solver.Engine.INDEXED).openList(Solver.OpenListType.BINARY_HEAP)),
+    INDEXED_BUCKET(new SolverOptions().engine(Solver.Engine.INDEXED).openList(Solver.OpenListType.BUCKET)),
+    JUMP_POINT(new SolverOptions().engine(Solver.Engine.JUMP_POINT)),
+    BIDIRECTIONAL(new SolverOptions().engine(Solver.Engine.BIDIRECTIONAL));
+
+    final SolverOptions options;
+
+    private Configuration(SolverOptions options) {
+      this.options = options;
+    }
+  }
+
+  @Param({ "OPEN", "RANDOM_10", "RANDOM_20", "RANDOM_30", "SERPENTINE", "SPIRAL" })
+  public MazeLayouts.Layout layout;
+
+  @Param({ "100", "1000", "10000" })
+  public int size;
+
+  @Param({ "NODE", "INDEXED_HEAP", "INDEXED_BUCKET", "JUMP_POINT", "BIDIRECTIONAL" })
+  public Configuration configuration;
+
+  private Maze maze;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.maze = MazeLayouts.create(this.layout, this.size, 42);
+  }
+
+  @Benchmark
+  public Solver solve() {
+    return new Solver(this.maze, this.configuration.options);
+  }
+}
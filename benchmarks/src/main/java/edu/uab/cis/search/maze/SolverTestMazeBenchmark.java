@@ -0,0 +1,108 @@
+package edu.uab.cis.search.maze;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code new Solver(maze)} on the small mazes from {@code SolverTest},
+ * where fixed per-solve costs dominate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverTestMazeBenchmark {
+
+  // @formatter:off
+  private static final String[] MAZES = {
+    "###############\n" +
+    "#S           G#\n" +
+    "#             #\n" +
+    "###############\n",
+
+    "##########\n" +
+    "#    #   #\n" +
+    "# #    #G#\n" +
+    "#S #     #\n" +
+    "##########\n",
+
+    "###############\n" +
+    "#     #G      #\n" +
+    "#S###  #      #\n" +
+    "####   # #### #\n" +
+    "#    ## #     #\n" +
+    "# ###    #### #\n" +
+    "#  #  ###  #  #\n" +
+    "#             #\n" +
+    "###############\n",
+
+    "###############\n" +
+    "#     #       #\n" +
+    "#S###  #     G#\n" +
+    "####   # #### #\n" +
+    "#    ## #     #\n" +
+    "# ###    #### #\n" +
+    "#  #  ###  #  #\n" +
+    "#             #\n" +
+    "###############\n",
+  };
+  // @formatter:on
+
+  @Param({ "0", "1", "2", "3" })
+  public int mazeIndex;
+
+  @Param({ "NODE", "INDEXED_HEAP", "INDEXED_BUCKET" })
+  public SolverBenchmark.Configuration configuration;
+
+  private Maze maze;
+
+  @Setup
+  public void setUp() {
+    this.maze = parse(MAZES[this.mazeIndex]);
+  }
+
+  @Benchmark
+  public Solver solve() {
+    return new Solver(this.maze, this.configuration.options);
+  }
+
+  /**
+   * Reads back the rendering produced by {@link Maze#toString()}.
+   */
+  private static Maze parse(String text) {
+    String[] lines = text.split("\n");
+    int rows = lines.length - 2;
+    int columns = lines[0].length() - 2;
+    Square start = null;
+    Square goal = null;
+    Set<Square> obstacles = new HashSet<>();
+    for (int row = 0; row < rows; ++row) {
+      for (int column = 0; column < columns; ++column) {
+        char c = lines[row + 1].charAt(column + 1);
+        if (c == 'S') {
+          start = new Square(row, column);
+        } else if (c == 'G') {
+          goal = new Square(row, column);
+        } else if (c == '#') {
+          obstacles.add(new Square(row, column));
+        }
+      }
+    }
+    return new Maze(rows, columns, start, goal, obstacles);
+  }
+}
@@ -0,0 +1,143 @@
+package edu.uab.cis.search.maze;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+
+/**
+ * Solves many queries against the same grid in parallel.
+ * 
+ * Every query shares the immutable {@link Grid}, so the queries can safely run
+ * on any number of threads. Each query borrows search buffers from a pool and
+ * returns them when it is done, so the index-based engines allocate their
+ * per-cell arrays once per query running at the same time rather than once
+ * per query. This works under any executor, including one that starts a new
+ * thread per task, such as a virtual thread executor.
+ */
+public class BatchSolver {
+
+  /**
+   * The outcome of one query in a batch.
+   */
+  public static class Result {
+
+    private final int index;
+    private final Query query;
+    private final Solver solver;
+
+    Result(int index, Query query, Solver solver) {
+      this.index = index;
+      this.query = query;
+      this.solver = solver;
+    }
+
+    /**
+     * @return The position of the query in the submitted list.
+     */
+    public int getIndex() {
+      return this.index;
+    }
+
+    /**
+     * @return The query that was solved.
+     */
+    public Query getQuery() {
+      return this.query;
+    }
+
+    /**
+     * @return The solver holding the path and explored squares for the query.
+     */
+    public Solver getSolver() {
+      return this.solver;
+    }
+  }
+
+  private final Grid grid;
+  private final SolverOptions options;
+  private final Executor executor;
+
+  // buffers not in use by a running query
+  private final ConcurrentLinkedQueue<SearchBuffers> buffers = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Creates a batch solver.
+   * 
+   * @param grid
+   *          The grid shared by every query.
+   * @param options
+   *          Options controlling how each query is solved.
+   * @param executor
+   *          The executor that runs the queries, e.g. a
+   *          {@link java.util.concurrent.ForkJoinPool}.
+   */
+  public BatchSolver(Grid grid, SolverOptions options, Executor executor) {
+    this.grid = grid;
+    this.options = options;
+    this.executor = executor;
+  }
+
+  /**
+   * Creates a batch solver.
+   * 
+   * @param maze
+   *          The maze whose grid is shared by every query. Its own start and
+   *          goal squares are ignored.
+   * @param options
+   *          Options controlling how each query is solved.
+   * @param executor
+   *          The executor that runs the queries, e.g. a
+   *          {@link java.util.concurrent.ForkJoinPool}.
+   */
+  public BatchSolver(Maze maze, SolverOptions options, Executor executor) {
+    this(maze.getGrid(), options, executor);
+  }
+
+  /**
+   * Submits the given queries for solving.
+   * 
+   * @param queries
+   *          The start and goal squares to find paths between.
+   * @return A completion service from which exactly {@code queries.size()}
+   *         results can be taken, in the order in which they complete. A query
+   *         whose start or goal square is blocked completes with an
+   *         {@link IllegalArgumentException}.
+   */
+  public CompletionService<Result> submit(List<Query> queries) {
+    CompletionService<Result> results = new ExecutorCompletionService<>(this.executor);
+    for (int i = 0; i < queries.size(); ++i) {
+      final int index = i;
+      final Query query = queries.get(i);
+      results.submit(new Callable<Result>() {
+        @Override
+        public Result call() {
+          return BatchSolver.this.solve(index, query);
+        }
+      });
+    }
+    return results;
+  }
+
+  private Result solve(int index, Query query) {
+    Maze maze = new Maze(this.grid, query);
+    SearchBuffers buffers = this.buffers.poll();
+    if (buffers == null) {
+      buffers = new SearchBuffers();
+    }
+    try {
+      return new Result(index, query, new Solver(maze, this.options, buffers));
+    } finally {
+      this.buffers.offer(buffers);
+    }
+  }
+
+  /**
+   * @return The number of search buffers waiting to be reused.
+   */
+  int pooledBuffers() {
+    return this.buffers.size();
+  }
+}
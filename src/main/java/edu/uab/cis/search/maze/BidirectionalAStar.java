@@ -0,0 +1,323 @@
+package edu.uab.cis.search.maze;
+
+import java.util.Arrays;
+
+/**
+ * Bidirectional A* over cell indices: one search runs forward from the start
+ * towards the goal, and another runs backward from the goal towards the start,
+ * each with an L1 heuristic towards its own target.
+ * 
+ * Whenever a cell has been reached by both searches, the cost of the path
+ * through it is an upper bound on the optimal cost. Since both heuristics are
+ * consistent, no path through a cell still open in one direction can be
+ * cheaper than the smallest f score in that direction's open list, so the
+ * search stops as soon as the best bound found is no larger than either
+ * direction's smallest f score. The resulting path is therefore optimal.
+ * 
+ * Each step expands the direction with the smaller open list, alternating
+ * between the directions when the lists are the same size. Instances are not
+ * thread-safe, but can be reused for many searches.
+ */
+final class BidirectionalAStar {
+
+  /**
+   * The state of the search in one direction.
+   */
+  static final class Side {
+
+    // flags: bits 0-1 hold the direction moved to reach the cell from its parent
+    private static final byte HAS_PARENT = 1 << 2;
+    private static final byte CLOSED = 1 << 3;
+
+    private int[] g = new int[0];
+    private int[] stamp = new int[0];
+    private byte[] flags = new byte[0];
+    private int generation;
+
+    private final CellHeap open = new CellHeap();
+
+    private int[] closed = new int[64];
+    private int closedCount;
+
+    private int targetRow;
+    private int targetColumn;
+
+    private void prepare(int cells, int origin, int h, Square target) {
+      if (this.g.length < cells) {
+        this.g = new int[cells];
+        this.stamp = new int[cells];
+        this.flags = new byte[cells];
+        this.generation = 0;
+        this.open.ensureCells(cells);
+      }
+      if (++this.generation == Integer.MAX_VALUE) {
+        Arrays.fill(this.stamp, 0);
+        this.generation = 1;
+      }
+      this.open.clear();
+      this.closedCount = 0;
+      this.targetRow = target.getRow();
+      this.targetColumn = target.getColumn();
+      this.stamp[origin] = this.generation;
+      this.g[origin] = 0;
+      this.flags[origin] = 0;
+      this.open.push(origin, h, h);
+    }
+
+    private boolean reached(int cell) {
+      return this.stamp[cell] == this.generation;
+    }
+
+    /**
+     * @return The smallest f score in the open list, or
+     *         {@link Integer#MAX_VALUE} if it is empty.
+     */
+    private int minF() {
+      return this.open.isEmpty() ? Integer.MAX_VALUE : this.open.minF();
+    }
+
+    private int parent(int cell, int columns) {
+      byte flag = this.flags[cell];
+      if ((flag & HAS_PARENT) == 0) {
+        return -1;
+      }
+      switch (flag & 3) {
+      case IndexedAStar.UP:
+        return cell + columns;
+      case IndexedAStar.DOWN:
+        return cell - columns;
+      case IndexedAStar.LEFT:
+        return cell + 1;
+      default:
+        return cell - 1;
+      }
+    }
+
+    private void addClosed(int cell) {
+      if (this.closedCount == this.closed.length) {
+        this.closed = Arrays.copyOf(this.closed, this.closedCount * 2);
+      }
+      this.closed[this.closedCount++] = cell;
+    }
+
+    /**
+     * @return The number of cells expanded in this direction by the last
+     *         search.
+     */
+    int closedCount() {
+      return this.closedCount;
+    }
+
+    /**
+     * @return The cells expanded in this direction by the last search, in
+     *         expansion order. Only the first {@link #closedCount()} entries are
+     *         valid.
+     */
+    int[] closedCells() {
+      return this.closed;
+    }
+  }
+
+  private final Side forward = new Side();
+  private final Side backward = new Side();
+
+  private int columns;
+  private int bestCost;
+  private int meeting;
+  private int pushedCount;
+  private int maxOpenSize;
+  private int heuristicEvaluations;
+  // the cell queued forward with the lowest heuristic, for a stopped search
+  private int nearest;
+  private int nearestH;
+
+  /**
+   * Searches the given maze between its start square and its goal square.
+   * 
+   * @param maze
+   *          The maze to be searched.
+   * @return True if the goal was reached.
+   */
+  boolean search(Maze maze) {
+    return this.search(maze, null) && this.meeting >= 0;
+  }
+
+  /**
+   * Searches as {@link #search(Maze)} does, but stops early if the given limits
+   * say so. A path may already have been found through a cell reached by both
+   * searches when they stop, but it is not known to be optimal.
+   * 
+   * @param limits
+   *          The limits on the search, or null if there are none.
+   * @return True if the search finished, whether or not the goal was reached;
+   *         false if the limits stopped it first.
+   */
+  boolean search(Maze maze, SearchLimits limits) {
+    Grid grid = maze.getGrid();
+    byte[][] neighbors = grid.searchMasks();
+    int columns = maze.getColumns();
+    int cells = maze.getRows() * columns;
+    this.columns = columns;
+    Square start = maze.getStart();
+    Square goal = maze.getGoal();
+    int startCell = start.getRow() * columns + start.getColumn();
+    int goalCell = goal.getRow() * columns + goal.getColumn();
+    int h = Math.abs(start.getRow() - goal.getRow()) + Math.abs(start.getColumn() - goal.getColumn());
+    this.forward.prepare(cells, startCell, h, goal);
+    this.backward.prepare(cells, goalCell, h, start);
+    this.nearest = startCell;
+    this.nearestH = h;
+    this.bestCost = Integer.MAX_VALUE;
+    this.meeting = -1;
+    this.pushedCount = 2;
+    this.maxOpenSize = 2;
+    this.heuristicEvaluations = 1;
+    if (startCell == goalCell) {
+      this.bestCost = 0;
+      this.meeting = startCell;
+    }
+
+    boolean forwardTurn = true;
+    while (this.bestCost > Math.max(this.forward.minF(), this.backward.minF())) {
+      int forwardSize = this.forward.open.size();
+      int backwardSize = this.backward.open.size();
+      Side side = this.forward;
+      Side other = this.backward;
+      if (forwardSize > backwardSize || (forwardSize == backwardSize && !forwardTurn)) {
+        side = this.backward;
+        other = this.forward;
+      }
+      forwardTurn = side == this.backward;
+      if (limits != null && limits.stop()) {
+        return false;
+      }
+      int cell = side.open.pop();
+      side.flags[cell] |= Side.CLOSED;
+      side.addClosed(cell);
+      int row = cell / columns;
+      int column = cell - row * columns;
+      int gNext = side.g[cell] + 1;
+      int open = neighbors != null ? Grid.mask(neighbors, cell) : grid.neighborMask(row, column);
+      if ((open & Grid.UP) != 0) {
+        this.relax(side, other, cell - columns, row - 1, column, gNext, IndexedAStar.UP);
+      }
+      if ((open & Grid.DOWN) != 0) {
+        this.relax(side, other, cell + columns, row + 1, column, gNext, IndexedAStar.DOWN);
+      }
+      if ((open & Grid.LEFT) != 0) {
+        this.relax(side, other, cell - 1, row, column - 1, gNext, IndexedAStar.LEFT);
+      }
+      if ((open & Grid.RIGHT) != 0) {
+        this.relax(side, other, cell + 1, row, column + 1, gNext, IndexedAStar.RIGHT);
+      }
+    }
+    return true;
+  }
+
+  private void relax(Side side, Side other, int cell, int row, int column, int gNext, int direction) {
+    int h = Math.abs(row - side.targetRow) + Math.abs(column - side.targetColumn);
+    ++this.heuristicEvaluations;
+    if (side.reached(cell)) {
+      if ((side.flags[cell] & Side.CLOSED) != 0 || side.g[cell] <= gNext) {
+        return;
+      }
+      side.g[cell] = gNext;
+      side.flags[cell] = (byte) (Side.HAS_PARENT | direction);
+      side.open.decreaseKey(cell, gNext + h, h);
+    } else {
+      side.stamp[cell] = side.generation;
+      side.g[cell] = gNext;
+      side.flags[cell] = (byte) (Side.HAS_PARENT | direction);
+      side.open.push(cell, gNext + h, h);
+      if (side == this.forward && h < this.nearestH) {
+        this.nearest = cell;
+        this.nearestH = h;
+      }
+      ++this.pushedCount;
+      int openSize = this.forward.open.size() + this.backward.open.size();
+      if (openSize > this.maxOpenSize) {
+        this.maxOpenSize = openSize;
+      }
+    }
+    // a path through this cell is now known in both directions
+    if (other.reached(cell) && gNext + other.g[cell] < this.bestCost) {
+      this.bestCost = gNext + other.g[cell];
+      this.meeting = cell;
+    }
+  }
+
+  /**
+   * @return The cells along the path from the start to the goal, including
+   *         both, or an empty array if the last search did not reach the goal.
+   */
+  int[] path() {
+    if (this.meeting < 0) {
+      return new int[0];
+    }
+    int[] path = new int[this.bestCost + 1];
+    int index = this.forward.g[this.meeting];
+    for (int cell = this.meeting; cell >= 0; cell = this.forward.parent(cell, this.columns)) {
+      path[index--] = cell;
+    }
+    index = this.forward.g[this.meeting];
+    for (int cell = this.meeting; cell >= 0; cell = this.backward.parent(cell, this.columns)) {
+      path[index++] = cell;
+    }
+    return path;
+  }
+
+  /**
+   * @return The cells along the path through the meeting cell if the searches
+   *         have met, and otherwise along the forward path from the start to
+   *         the cell queued forward with the lowest heuristic, the first
+   *         queued if several tie, including both ends.
+   */
+  int[] nearestPath() {
+    if (this.meeting >= 0) {
+      return this.path();
+    }
+    int[] path = new int[this.forward.g[this.nearest] + 1];
+    int index = path.length - 1;
+    for (int cell = this.nearest; cell >= 0; cell = this.forward.parent(cell, this.columns)) {
+      path[index--] = cell;
+    }
+    return path;
+  }
+
+  /**
+   * @return The number of cells queued on either open list by the last search.
+   *         Cells whose queued entry was updated in place are counted once.
+   */
+  int pushedCount() {
+    return this.pushedCount;
+  }
+
+  /**
+   * @return The largest number of cells that were on the open lists at once
+   *         during the last search.
+   */
+  int maxOpenSize() {
+    return this.maxOpenSize;
+  }
+
+  /**
+   * @return The number of times the last search computed a heuristic.
+   */
+  int heuristicEvaluations() {
+    return this.heuristicEvaluations;
+  }
+
+  /**
+   * @return The search that ran forward from the start.
+   */
+  Side forward() {
+    return this.forward;
+  }
+
+  /**
+   * @return The search that ran backward from the goal.
+   */
+  Side backward() {
+    return this.backward;
+  }
+}
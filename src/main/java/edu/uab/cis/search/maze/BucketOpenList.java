@@ -0,0 +1,212 @@
+package edu.uab.cis.search.maze;
+
+import java.util.Arrays;
+
+/**
+ * An open list of buckets indexed by f score (a Dial queue), specialized for
+ * grids where every step costs 1 and the heuristic is consistent.
+ * 
+ * Under those conditions f never decreases during a search and a newly queued
+ * cell has an f at most 2 above the cell being expanded, so the live f scores
+ * span a small window. The buckets form a circular array over that window,
+ * growing only if the window does. Moving to the next non-empty f is O(1)
+ * amortized, regardless of how many cells are queued.
+ * 
+ * Within a bucket, cells are kept in a small binary heap of
+ * {@code h << 32 | cell} entries so that they come out in h, then row, then
+ * column order. That heap only ever holds the cells sharing a single f score.
+ * 
+ * Lowering the f of a queued cell adds a new entry to a lower bucket and leaves
+ * the old entry behind; old entries are recognized and dropped when they reach
+ * the front of their bucket.
+ */
+final class BucketOpenList implements OpenList {
+
+  private static final int NOT_QUEUED = -1;
+
+  // bucket for f is at index f & mask, for f in [minF, minF + buckets.length)
+  private long[][] buckets;
+  private int[] bucketSizes;
+  private int mask;
+  private int minF;
+  private int maxF;
+
+  // the f of each queued cell, or NOT_QUEUED
+  private int[] queuedF;
+  private int size;
+
+  BucketOpenList() {
+    this.buckets = new long[16][];
+    this.bucketSizes = new int[16];
+    this.mask = 15;
+    this.queuedF = new int[0];
+  }
+
+  @Override
+  public void ensureCells(int cells) {
+    if (this.queuedF.length < cells) {
+      int old = this.queuedF.length;
+      this.queuedF = Arrays.copyOf(this.queuedF, cells);
+      Arrays.fill(this.queuedF, old, cells, NOT_QUEUED);
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public void clear() {
+    for (int slot = 0; slot < this.buckets.length; ++slot) {
+      long[] bucket = this.buckets[slot];
+      for (int i = 0; i < this.bucketSizes[slot]; ++i) {
+        this.queuedF[(int) bucket[i]] = NOT_QUEUED;
+      }
+      this.bucketSizes[slot] = 0;
+    }
+    this.size = 0;
+  }
+
+  @Override
+  public boolean contains(int cell) {
+    return this.queuedF[cell] != NOT_QUEUED;
+  }
+
+  @Override
+  public void push(int cell, int f, int h) {
+    this.add(cell, f, h);
+    ++this.size;
+  }
+
+  @Override
+  public void decreaseKey(int cell, int f, int h) {
+    this.add(cell, f, h);
+  }
+
+  @Override
+  public int minF() {
+    this.skipToFirst();
+    return this.minF;
+  }
+
+  @Override
+  public int pop() {
+    this.skipToFirst();
+    int slot = this.minF & this.mask;
+    int cell = (int) this.removeFirst(slot);
+    this.queuedF[cell] = NOT_QUEUED;
+    if (--this.size == 0) {
+      // drop entries left behind by decreaseKey before the window moves
+      for (int f = this.minF; f <= this.maxF; ++f) {
+        this.bucketSizes[f & this.mask] = 0;
+      }
+    }
+    return cell;
+  }
+
+  private void add(int cell, int f, int h) {
+    if (this.size == 0) {
+      this.minF = f;
+      this.maxF = f;
+    } else if (f < this.minF) {
+      this.fit(f, this.maxF);
+      this.minF = f;
+    } else if (f > this.maxF) {
+      this.fit(this.minF, f);
+      this.maxF = f;
+    }
+    this.queuedF[cell] = f;
+    int slot = f & this.mask;
+    long[] bucket = this.buckets[slot];
+    int n = this.bucketSizes[slot];
+    if (bucket == null) {
+      bucket = this.buckets[slot] = new long[16];
+    } else if (n == bucket.length) {
+      bucket = this.buckets[slot] = Arrays.copyOf(bucket, n * 2);
+    }
+    // sift the new entry up the bucket's heap
+    long entry = ((long) h << 32) | cell;
+    int index = n;
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (bucket[parent] <= entry) {
+        break;
+      }
+      bucket[index] = bucket[parent];
+      index = parent;
+    }
+    bucket[index] = entry;
+    this.bucketSizes[slot] = n + 1;
+  }
+
+  /**
+   * Advances {@link #minF} to the first bucket whose first entry is still
+   * current, dropping entries left behind by {@link #decreaseKey}.
+   */
+  private void skipToFirst() {
+    while (true) {
+      int slot = this.minF & this.mask;
+      if (this.bucketSizes[slot] == 0) {
+        ++this.minF;
+      } else if (this.queuedF[(int) this.buckets[slot][0]] != this.minF) {
+        this.removeFirst(slot);
+      } else {
+        return;
+      }
+    }
+  }
+
+  private long removeFirst(int slot) {
+    long[] bucket = this.buckets[slot];
+    long first = bucket[0];
+    int n = --this.bucketSizes[slot];
+    if (n > 0) {
+      long entry = bucket[n];
+      int index = 0;
+      int half = n >>> 1;
+      while (index < half) {
+        int child = 2 * index + 1;
+        if (child + 1 < n && bucket[child + 1] < bucket[child]) {
+          ++child;
+        }
+        if (entry <= bucket[child]) {
+          break;
+        }
+        bucket[index] = bucket[child];
+        index = child;
+      }
+      bucket[index] = entry;
+    }
+    return first;
+  }
+
+  /**
+   * Grows the circular array until it can hold every f from low to high.
+   */
+  private void fit(int low, int high) {
+    int capacity = this.buckets.length;
+    if (high - low < capacity) {
+      return;
+    }
+    while (high - low >= capacity) {
+      capacity *= 2;
+    }
+    long[][] buckets = new long[capacity][];
+    int[] bucketSizes = new int[capacity];
+    int mask = capacity - 1;
+    for (int f = this.minF; f <= this.maxF; ++f) {
+      int slot = f & this.mask;
+      buckets[f & mask] = this.buckets[slot];
+      bucketSizes[f & mask] = this.bucketSizes[slot];
+    }
+    this.buckets = buckets;
+    this.bucketSizes = bucketSizes;
+    this.mask = mask;
+  }
+}
@@ -0,0 +1,29 @@
+package edu.uab.cis.search.maze;
+
+/**
+ * Lets one thread ask searches running on other threads to stop early.
+ *
+ * A token is registered with {@link SolverOptions#cancellationToken}; every
+ * search run with those options checks it every so often, and once it has
+ * been cancelled stops with {@link Solver.Termination#CANCELLED}. A token
+ * cannot be reset, so a token shared by a batch of searches cancels all of
+ * them, including those not yet started.
+ */
+public final class CancellationToken {
+
+  private volatile boolean cancelled;
+
+  /**
+   * Asks every search using this token to stop.
+   */
+  public void cancel() {
+    this.cancelled = true;
+  }
+
+  /**
+   * @return True if {@link #cancel()} has been called.
+   */
+  public boolean isCancelled() {
+    return this.cancelled;
+  }
+}
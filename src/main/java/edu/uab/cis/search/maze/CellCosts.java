@@ -0,0 +1,75 @@
+package edu.uab.cis.search.maze;
+
+/**
+ * A terrain cost map: the cost of stepping onto each square of a grid, kept
+ * in a flat {@code int[]} indexed by {@code row * columns + column}, so that
+ * looking up a step's cost is a single array read.
+ *
+ * Instances are immutable.
+ */
+public final class CellCosts implements EdgeCost {
+
+  private final int rows;
+  private final int columns;
+  private final int[] costs;
+  private final int minimumCost;
+
+  /**
+   * Creates a cost map.
+   *
+   * @param rows
+   *          The number of rows of squares in the grid.
+   * @param columns
+   *          The number of columns of squares in the grid.
+   * @param costs
+   *          The cost, at least 1, of stepping onto each square, indexed by
+   *          {@code row * columns + column}. The array is copied. The costs of
+   *          blocked squares are never used.
+   */
+  public CellCosts(int rows, int columns, int[] costs) {
+    if (costs.length != rows * columns) {
+      throw new IllegalArgumentException("Expected " + rows * columns + " costs, found " + costs.length);
+    }
+    int minimumCost = Integer.MAX_VALUE;
+    for (int cost : costs) {
+      if (cost < 1) {
+        throw new IllegalArgumentException("Costs must be at least 1: " + cost);
+      }
+      minimumCost = Math.min(minimumCost, cost);
+    }
+    this.rows = rows;
+    this.columns = columns;
+    this.costs = costs.clone();
+    this.minimumCost = costs.length == 0 ? 1 : minimumCost;
+  }
+
+  /**
+   * @return The cost of stepping onto the given square.
+   */
+  public int getCost(int row, int column) {
+    if (row < 0 || row >= this.rows || column < 0 || column >= this.columns) {
+      throw new IllegalArgumentException("Square is outside the grid: " + new Square(row, column));
+    }
+    return this.costs[row * this.columns + column];
+  }
+
+  /**
+   * @return The cost of stepping onto the square {@code to}.
+   */
+  @Override
+  public int cost(int from, int to) {
+    return this.costs[to];
+  }
+
+  @Override
+  public int minimumCost() {
+    return this.minimumCost;
+  }
+
+  /**
+   * @return True if the map covers a grid of the given size.
+   */
+  boolean fits(int rows, int columns) {
+    return this.rows == rows && this.columns == columns;
+  }
+}
@@ -0,0 +1,207 @@
+package edu.uab.cis.search.maze;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of cell indices, each with a primitive {@code long} key.
+ * 
+ * Entries are ordered by key, and entries with equal keys are ordered by cell
+ * index. Since a cell index is {@code row * columns + column}, encoding the key
+ * as {@code f << 32 | h} reproduces the f, then h, then row, then column order
+ * used by {@link Solver}. Keys and cells live in parallel arrays, so pushing and
+ * popping never allocate once the arrays have grown to the size of the
+ * frontier.
+ * 
+ * Each cell is in the heap at most once: the heap tracks the position of every
+ * cell it holds, so a cell that is reached again with a better key is moved up
+ * with {@link #decreaseKey(int, int, int)} rather than pushed a second time.
+ */
+final class CellHeap implements OpenList {
+
+  private long[] keys;
+  private int[] cells;
+  private int size;
+
+  // position of each cell in the heap arrays, or -1 if the cell is not queued
+  private int[] positions;
+
+  CellHeap() {
+    this.keys = new long[64];
+    this.cells = new int[64];
+    this.positions = new int[0];
+  }
+
+  /**
+   * Encodes an f score and an h score as a single heap key.
+   */
+  static long key(int f, int h) {
+    return ((long) f << 32) | (h & 0xFFFFFFFFL);
+  }
+
+  @Override
+  public void ensureCells(int cells) {
+    if (this.positions.length < cells) {
+      int old = this.positions.length;
+      this.positions = Arrays.copyOf(this.positions, cells);
+      Arrays.fill(this.positions, old, cells, -1);
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < this.size; ++i) {
+      this.positions[this.cells[i]] = -1;
+    }
+    this.size = 0;
+  }
+
+  @Override
+  public boolean contains(int cell) {
+    return this.positions[cell] >= 0;
+  }
+
+  @Override
+  public int minF() {
+    return (int) (this.keys[0] >>> 32);
+  }
+
+  @Override
+  public void push(int cell, int f, int h) {
+    this.push(key(f, h), cell);
+  }
+
+  @Override
+  public void decreaseKey(int cell, int f, int h) {
+    this.decreaseKey(cell, key(f, h));
+  }
+
+  /**
+   * @return The key of the smallest entry. Only valid if the heap is not empty.
+   */
+  long peekKey() {
+    return this.keys[0];
+  }
+
+  /**
+   * @return The cell of the smallest entry. Only valid if the heap is not
+   *         empty.
+   */
+  int peekCell() {
+    return this.cells[0];
+  }
+
+  /**
+   * Queues a cell that is not already in the heap.
+   */
+  void push(long key, int cell) {
+    if (this.size == this.keys.length) {
+      this.keys = Arrays.copyOf(this.keys, this.size * 2);
+      this.cells = Arrays.copyOf(this.cells, this.size * 2);
+    }
+    this.siftUp(this.size++, key, cell);
+  }
+
+  /**
+   * Lowers the key of a cell that is already in the heap.
+   */
+  void decreaseKey(int cell, long key) {
+    this.siftUp(this.positions[cell], key, cell);
+  }
+
+  /**
+   * Changes the key of a cell that is already in the heap, in either
+   * direction.
+   */
+  void changeKey(int cell, long key) {
+    int index = this.positions[cell];
+    if (less(key, cell, this.keys[index], cell)) {
+      this.siftUp(index, key, cell);
+    } else {
+      this.siftDown(index, key, cell);
+    }
+  }
+
+  /**
+   * Removes a cell that is in the heap, wherever it is.
+   */
+  void remove(int cell) {
+    int index = this.positions[cell];
+    this.positions[cell] = -1;
+    int last = --this.size;
+    if (index < last) {
+      long key = this.keys[last];
+      int moved = this.cells[last];
+      if (less(key, moved, this.keys[index], cell)) {
+        this.siftUp(index, key, moved);
+      } else {
+        this.siftDown(index, key, moved);
+      }
+    }
+  }
+
+  @Override
+  public int pop() {
+    int top = this.cells[0];
+    this.positions[top] = -1;
+    int last = --this.size;
+    if (last > 0) {
+      this.siftDown(0, this.keys[last], this.cells[last]);
+    }
+    return top;
+  }
+
+  private void siftUp(int index, long key, int cell) {
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      long parentKey = this.keys[parent];
+      if (parentKey < key || (parentKey == key && this.cells[parent] <= cell)) {
+        break;
+      }
+      this.move(parent, index);
+      index = parent;
+    }
+    this.keys[index] = key;
+    this.cells[index] = cell;
+    this.positions[cell] = index;
+  }
+
+  private void siftDown(int index, long key, int cell) {
+    int half = this.size >>> 1;
+    while (index < half) {
+      int child = 2 * index + 1;
+      int right = child + 1;
+      if (right < this.size && less(this.keys[right], this.cells[right], this.keys[child], this.cells[child])) {
+        child = right;
+      }
+      if (!less(this.keys[child], this.cells[child], key, cell)) {
+        break;
+      }
+      this.move(child, index);
+      index = child;
+    }
+    this.keys[index] = key;
+    this.cells[index] = cell;
+    this.positions[cell] = index;
+  }
+
+  private void move(int from, int to) {
+    this.keys[to] = this.keys[from];
+    int cell = this.cells[from];
+    this.cells[to] = cell;
+    this.positions[cell] = to;
+  }
+
+  private static boolean less(long key1, int cell1, long key2, int cell2) {
+    return key1 < key2 || (key1 == key2 && cell1 < cell2);
+  }
+}
@@ -0,0 +1,127 @@
+package edu.uab.cis.search.maze;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only set of squares backed by a bitset with one bit per cell of a
+ * grid, indexed by {@code row * columns + column}.
+ *
+ * Membership tests are a single bit test, and {@link Square}s are only created
+ * as the set is iterated, so handing out a search's explored squares costs
+ * nothing beyond the bitset the search already kept. Iteration is in row-major
+ * order.
+ */
+final class CellSet extends AbstractSet<Square> {
+
+  private final long[] bits;
+  private final int rows;
+  private final int columns;
+  private int size = -1;
+
+  /**
+   * @param bits
+   *          The bitset, which is used directly and must not be modified
+   *          afterwards.
+   */
+  CellSet(long[] bits, int rows, int columns) {
+    this.bits = bits;
+    this.rows = rows;
+    this.columns = columns;
+  }
+
+  /**
+   * @return An empty bitset large enough for the given grid.
+   */
+  static long[] bits(int rows, int columns) {
+    return new long[Grid.words(rows, columns)];
+  }
+
+  /**
+   * Adds a cell to a bitset.
+   */
+  static void add(long[] bits, int cell) {
+    bits[cell >>> 6] |= 1L << cell;
+  }
+
+  /**
+   * Adds the first count of the given cells to a bitset.
+   */
+  static void addAll(long[] bits, int[] cells, int count) {
+    for (int i = 0; i < count; ++i) {
+      int cell = cells[i];
+      bits[cell >>> 6] |= 1L << cell;
+    }
+  }
+
+  /**
+   * @return True if a bitset contains a cell.
+   */
+  static boolean contains(long[] bits, int cell) {
+    return (bits[cell >>> 6] & (1L << cell)) != 0;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    if (!(o instanceof Square)) {
+      return false;
+    }
+    Square square = (Square) o;
+    int row = square.getRow();
+    int column = square.getColumn();
+    if (row < 0 || row >= this.rows || column < 0 || column >= this.columns) {
+      return false;
+    }
+    return contains(this.bits, row * this.columns + column);
+  }
+
+  @Override
+  public int size() {
+    if (this.size < 0) {
+      int size = 0;
+      for (long word : this.bits) {
+        size += Long.bitCount(word);
+      }
+      this.size = size;
+    }
+    return this.size;
+  }
+
+  @Override
+  public Iterator<Square> iterator() {
+    return new Iterator<Square>() {
+
+      private int word = -1;
+      private long remaining;
+
+      @Override
+      public boolean hasNext() {
+        while (this.remaining == 0) {
+          if (++this.word >= CellSet.this.bits.length) {
+            this.word = CellSet.this.bits.length;
+            return false;
+          }
+          this.remaining = CellSet.this.bits[this.word];
+        }
+        return true;
+      }
+
+      @Override
+      public Square next() {
+        if (!this.hasNext()) {
+          throw new NoSuchElementException();
+        }
+        int cell = (this.word << 6) + Long.numberOfTrailingZeros(this.remaining);
+        // clear the lowest set bit
+        this.remaining &= this.remaining - 1;
+        return new Square(cell / CellSet.this.columns, cell % CellSet.this.columns);
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+}
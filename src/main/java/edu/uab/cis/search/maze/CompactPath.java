@@ -0,0 +1,351 @@
+package edu.uab.cis.search.maze;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * A path stored as its first square plus one 2-bit direction code per step,
+ * 32 steps to a {@code long}, instead of one {@link Square} object per step.
+ *
+ * The path is itself a read-only {@code List<Square>}: squares are decoded
+ * only when they are asked for, so the list is a view of the packed form, not
+ * a copy of it. Iterating decodes one step per square, and {@link #get(int)}
+ * skips over whole 32-step words with bit counts. {@link #cursor()} walks the
+ * path without creating any {@link Square} at all.
+ *
+ * A path serializes to its packed form, either through
+ * {@link java.io.Serializable} or, more compactly still, through
+ * {@link #writeTo(DataOutput)} and {@link #readFrom(DataInput)}.
+ */
+public final class CompactPath extends AbstractList<Square> implements RandomAccess, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  // the low bit and the high bit of every 2-bit direction code in a word
+  private static final long LOW_BITS = 0x5555555555555555L;
+
+  static final CompactPath EMPTY = new CompactPath(0, 0, 0, new long[0]);
+
+  private final int startRow;
+  private final int startColumn;
+  private final int length;
+  private final long[] directions;
+
+  /**
+   * @param directions
+   *          The direction codes, as filled in by
+   *          {@link #setDirection(long[], int, int)}. The array is used
+   *          directly, not copied, and must not be modified afterwards.
+   */
+  CompactPath(int startRow, int startColumn, int length, long[] directions) {
+    this.startRow = startRow;
+    this.startColumn = startColumn;
+    this.length = length;
+    this.directions = directions;
+  }
+
+  /**
+   * Encodes a path of adjacent squares.
+   *
+   * @param path
+   *          The squares along the path, possibly none.
+   * @return The encoded path.
+   * @throws IllegalArgumentException
+   *           If two consecutive squares are not adjacent.
+   */
+  public static CompactPath of(List<Square> path) {
+    if (path instanceof CompactPath) {
+      return (CompactPath) path;
+    }
+    if (path.isEmpty()) {
+      return EMPTY;
+    }
+    Square start = path.get(0);
+    long[] directions = directions(path.size());
+    Square previous = null;
+    int step = 0;
+    for (Square square : path) {
+      if (previous == null) {
+        previous = square;
+        continue;
+      }
+      int direction = direction(square.getRow() - previous.getRow(), square.getColumn() - previous.getColumn());
+      setDirection(directions, step++, direction);
+      previous = square;
+    }
+    return new CompactPath(start.getRow(), start.getColumn(), path.size(), directions);
+  }
+
+  /**
+   * Encodes a path of adjacent cell indices ({@code row * columns + column}).
+   */
+  static CompactPath ofCells(int[] cells, int columns) {
+    if (cells.length == 0) {
+      return EMPTY;
+    }
+    long[] directions = directions(cells.length);
+    for (int step = 0; step < cells.length - 1; ++step) {
+      int difference = cells[step + 1] - cells[step];
+      int direction;
+      // vertical first, since with one column a vertical step is also 1
+      if (difference == -columns) {
+        direction = IndexedAStar.UP;
+      } else if (difference == columns) {
+        direction = IndexedAStar.DOWN;
+      } else if (difference == -1) {
+        direction = IndexedAStar.LEFT;
+      } else if (difference == 1) {
+        direction = IndexedAStar.RIGHT;
+      } else {
+        throw new IllegalArgumentException("Cells on a path must be adjacent");
+      }
+      setDirection(directions, step, direction);
+    }
+    return new CompactPath(cells[0] / columns, cells[0] % columns, cells.length, directions);
+  }
+
+  /**
+   * @return An empty array of direction codes for a path of the given number
+   *         of squares.
+   */
+  static long[] directions(int length) {
+    return new long[(Math.max(0, length - 1) + 31) >>> 5];
+  }
+
+  /**
+   * Sets the direction code of the given step, i.e. the move from square
+   * {@code step} to square {@code step + 1}. The code must not have been set
+   * before.
+   */
+  static void setDirection(long[] directions, int step, int direction) {
+    directions[step >>> 5] |= (long) direction << ((step & 31) << 1);
+  }
+
+  /**
+   * @return The direction code ({@link IndexedAStar#UP} etc.) of the step from
+   *         one square to an adjacent square.
+   * @throws IllegalArgumentException
+   *           If the squares are not adjacent.
+   */
+  static int direction(int dRow, int dColumn) {
+    if (dRow == -1 && dColumn == 0) {
+      return IndexedAStar.UP;
+    } else if (dRow == 1 && dColumn == 0) {
+      return IndexedAStar.DOWN;
+    } else if (dRow == 0 && dColumn == -1) {
+      return IndexedAStar.LEFT;
+    } else if (dRow == 0 && dColumn == 1) {
+      return IndexedAStar.RIGHT;
+    }
+    throw new IllegalArgumentException("Squares on a path must be adjacent");
+  }
+
+  /**
+   * @return The number of squares on the path, including the start.
+   */
+  @Override
+  public int size() {
+    return this.length;
+  }
+
+  @Override
+  public Square get(int index) {
+    if (index < 0 || index >= this.length) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.length);
+    }
+    int row = this.startRow;
+    int column = this.startColumn;
+    // whole words: count each direction code with bit tricks
+    int words = index >>> 5;
+    for (int i = 0; i < words; ++i) {
+      long word = this.directions[i];
+      long low = word & LOW_BITS;
+      long high = (word >>> 1) & LOW_BITS;
+      int down = Long.bitCount(low & ~high);
+      int right = Long.bitCount(low & high);
+      int left = Long.bitCount(~low & high);
+      int up = 32 - down - right - left;
+      row += down - up;
+      column += right - left;
+    }
+    // then the remaining steps one by one
+    for (int step = words << 5; step < index; ++step) {
+      switch (this.direction(step)) {
+      case IndexedAStar.UP:
+        --row;
+        break;
+      case IndexedAStar.DOWN:
+        ++row;
+        break;
+      case IndexedAStar.LEFT:
+        --column;
+        break;
+      default:
+        ++column;
+      }
+    }
+    return new Square(row, column);
+  }
+
+  @Override
+  public Iterator<Square> iterator() {
+    final Cursor cursor = this.cursor();
+    return new Iterator<Square>() {
+
+      @Override
+      public boolean hasNext() {
+        return cursor.hasNext();
+      }
+
+      @Override
+      public Square next() {
+        if (!cursor.next()) {
+          throw new NoSuchElementException();
+        }
+        return new Square(cursor.getRow(), cursor.getColumn());
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /**
+   * @return A cursor positioned before the first square of the path.
+   */
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  /**
+   * @return The squares along the path, as a new, modifiable list.
+   */
+  public List<Square> toList() {
+    return new ArrayList<>(this);
+  }
+
+  /**
+   * Writes the packed form of this path: the start row, start column and
+   * number of squares as {@code int}s, followed by the direction codes as
+   * {@code long}s.
+   */
+  public void writeTo(DataOutput out) throws IOException {
+    out.writeInt(this.startRow);
+    out.writeInt(this.startColumn);
+    out.writeInt(this.length);
+    for (long word : this.directions) {
+      out.writeLong(word);
+    }
+  }
+
+  /**
+   * Reads a path written by {@link #writeTo(DataOutput)}.
+   *
+   * @throws IOException
+   *           If the path cannot be read or its length is negative.
+   */
+  public static CompactPath readFrom(DataInput in) throws IOException {
+    int startRow = in.readInt();
+    int startColumn = in.readInt();
+    int length = in.readInt();
+    if (length < 0) {
+      throw new IOException("Negative path length: " + length);
+    }
+    long[] directions = directions(length);
+    for (int i = 0; i < directions.length; ++i) {
+      directions[i] = in.readLong();
+    }
+    return new CompactPath(startRow, startColumn, length, directions);
+  }
+
+  private int direction(int step) {
+    return (int) (this.directions[step >>> 5] >>> ((step & 31) << 1)) & 3;
+  }
+
+  /**
+   * Walks a path one square at a time using only primitive fields.
+   *
+   * <pre>
+   * for (CompactPath.Cursor cursor = path.cursor(); cursor.next();) {
+   *   use(cursor.getRow(), cursor.getColumn());
+   * }
+   * </pre>
+   */
+  public final class Cursor {
+
+    private int index = -1;
+    private int row;
+    private int column;
+
+    private Cursor() {
+    }
+
+    /**
+     * @return True if there is another square after the current one.
+     */
+    public boolean hasNext() {
+      return this.index + 1 < CompactPath.this.length;
+    }
+
+    /**
+     * Moves to the next square.
+     *
+     * @return False if the end of the path had already been reached.
+     */
+    public boolean next() {
+      if (!this.hasNext()) {
+        return false;
+      }
+      if (++this.index == 0) {
+        this.row = CompactPath.this.startRow;
+        this.column = CompactPath.this.startColumn;
+        return true;
+      }
+      switch (CompactPath.this.direction(this.index - 1)) {
+      case IndexedAStar.UP:
+        --this.row;
+        break;
+      case IndexedAStar.DOWN:
+        ++this.row;
+        break;
+      case IndexedAStar.LEFT:
+        --this.column;
+        break;
+      default:
+        ++this.column;
+      }
+      return true;
+    }
+
+    /**
+     * @return The position of the current square on the path, starting at 0.
+     */
+    public int getIndex() {
+      return this.index;
+    }
+
+    /**
+     * @return The row of the current square.
+     */
+    public int getRow() {
+      return this.row;
+    }
+
+    /**
+     * @return The column of the current square.
+     */
+    public int getColumn() {
+      return this.column;
+    }
+  }
+}
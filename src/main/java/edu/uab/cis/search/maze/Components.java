@@ -0,0 +1,347 @@
+package edu.uab.cis.search.maze;
+
+import java.util.Arrays;
+
+/**
+ * Labels the connected regions of open squares in a {@link Grid}: two open
+ * squares have the same label exactly when a path of open squares joins them.
+ * Blocked squares have label 0.
+ *
+ * The labels are built with a single row-major union-find pass, and are kept
+ * exact as obstacles change. They are stored in chunks of {@link #CHUNK_SIZE}
+ * squares that are shared between versions, so a change copies only the
+ * chunks whose labels it rewrites. Opening a square merges the regions around
+ * it by relabeling all but the largest, and blocking a square floods the
+ * region it was in from each of its open neighbors in lockstep, stopping as
+ * soon as at most one flood is neither finished nor joined to the others.
+ * Either way the work is proportional to the smaller regions involved rather
+ * than the largest. Instances are immutable.
+ */
+final class Components {
+
+  // labels are stored in chunks of CHUNK_SIZE squares
+  private static final int CHUNK_SHIFT = 10;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private final int[][] chunks;
+  private final int nextLabel;
+
+  private Components(int[][] chunks, int nextLabel) {
+    this.chunks = chunks;
+    this.nextLabel = nextLabel;
+  }
+
+  /**
+   * Labels the regions of the given grid.
+   */
+  static Components of(Grid grid) {
+    int rows = grid.getRows();
+    int columns = grid.getColumns();
+    // first the union-find parents: every pointer goes to a smaller index, so
+    // each root is the first square of its region in row-major order
+    int[] labels = new int[rows * columns];
+    int cell = 0;
+    for (int row = 0; row < rows; ++row) {
+      for (int column = 0; column < columns; ++column, ++cell) {
+        if (grid.isBlocked(row, column)) {
+          continue;
+        }
+        labels[cell] = cell;
+        if (column > 0 && !grid.isBlocked(row, column - 1)) {
+          union(labels, cell, cell - 1);
+        }
+        if (row > 0 && !grid.isBlocked(row - 1, column)) {
+          union(labels, cell, cell - columns);
+        }
+      }
+    }
+    // then, in the same order, replace each pointer with its root's label; the
+    // squares before this one have already been converted
+    int count = 0;
+    cell = 0;
+    for (int row = 0; row < rows; ++row) {
+      for (int column = 0; column < columns; ++column, ++cell) {
+        if (grid.isBlocked(row, column)) {
+          labels[cell] = 0;
+        } else {
+          int parent = labels[cell];
+          labels[cell] = parent == cell ? ++count : labels[parent];
+        }
+      }
+    }
+    int[][] chunks = new int[(labels.length + CHUNK_MASK) >>> CHUNK_SHIFT][];
+    for (int chunk = 0; chunk < chunks.length; ++chunk) {
+      int from = chunk << CHUNK_SHIFT;
+      chunks[chunk] = Arrays.copyOfRange(labels, from, Math.min(labels.length, from + CHUNK_SIZE));
+    }
+    return new Components(chunks, count + 1);
+  }
+
+  /**
+   * @return The label of a square, or 0 if it is blocked.
+   */
+  int label(int cell) {
+    return this.chunks[cell >>> CHUNK_SHIFT][cell & CHUNK_MASK];
+  }
+
+  /**
+   * Updates the labels for one square being blocked or opened.
+   *
+   * @param grid
+   *          The grid after the change.
+   * @param cell
+   *          The square that changed.
+   * @return The new labels. These labels are not modified.
+   */
+  Components withChanged(Grid grid, int cell) {
+    Update update = new Update(grid, this.chunks, this.nextLabel);
+    int columns = grid.getColumns();
+    int row = cell / columns;
+    int column = cell % columns;
+    int[] neighbors = new int[4];
+    int count = 0;
+    if (!grid.isBlocked(row - 1, column)) {
+      neighbors[count++] = cell - columns;
+    }
+    if (!grid.isBlocked(row + 1, column)) {
+      neighbors[count++] = cell + columns;
+    }
+    if (!grid.isBlocked(row, column - 1)) {
+      neighbors[count++] = cell - 1;
+    }
+    if (!grid.isBlocked(row, column + 1)) {
+      neighbors[count++] = cell + 1;
+    }
+    if (grid.isBlocked(row, column)) {
+      int old = update.get(cell);
+      update.set(cell, 0);
+      // with at most one open neighbor, the region cannot have been split
+      if (count > 1) {
+        update.split(neighbors, count, old);
+      }
+    } else if (count == 0) {
+      update.set(cell, update.nextLabel++);
+    } else {
+      update.join(cell, neighbors, count);
+    }
+    return new Components(update.chunks, update.nextLabel);
+  }
+
+  private static void union(int[] parents, int a, int b) {
+    int rootA = find(parents, a);
+    int rootB = find(parents, b);
+    if (rootA < rootB) {
+      parents[rootB] = rootA;
+    } else if (rootB < rootA) {
+      parents[rootA] = rootB;
+    }
+  }
+
+  private static int find(int[] parents, int cell) {
+    while (parents[cell] != cell) {
+      // path halving
+      parents[cell] = parents[parents[cell]];
+      cell = parents[cell];
+    }
+    return cell;
+  }
+
+  /**
+   * The labels of a new version while they are being updated, with up to four
+   * breadth-first floods over the squares around the changed one. Flood
+   * {@code i} marks the squares it reaches with the temporary label
+   * {@code -1 - i}, and its queue doubles as the list of those squares, so
+   * that they can be given their final labels afterwards.
+   */
+  private static final class Update {
+
+    private final Grid grid;
+    private final int columns;
+    // null until the grid's masks are built, which an update does not force
+    private final byte[][] masks;
+    private final int[][] shared;
+    final int[][] chunks;
+    int nextLabel;
+
+    private final int[][] queues = new int[4][];
+    private final int[] heads = new int[4];
+    private final int[] tails = new int[4];
+    // the label each flood spreads over
+    private final int[] from = new int[4];
+    // floods that have met form a group, named by its lowest flood
+    private final int[] groups = new int[4];
+
+    Update(Grid grid, int[][] chunks, int nextLabel) {
+      this.grid = grid;
+      this.columns = grid.getColumns();
+      this.masks = grid.builtMasks();
+      this.shared = chunks;
+      this.chunks = chunks.clone();
+      this.nextLabel = nextLabel;
+    }
+
+    int get(int cell) {
+      return this.chunks[cell >>> CHUNK_SHIFT][cell & CHUNK_MASK];
+    }
+
+    void set(int cell, int label) {
+      int chunk = cell >>> CHUNK_SHIFT;
+      if (this.chunks[chunk] == this.shared[chunk]) {
+        this.chunks[chunk] = this.shared[chunk].clone();
+      }
+      this.chunks[chunk][cell & CHUNK_MASK] = label;
+    }
+
+    /**
+     * Relabels the squares once labeled {@code old} that the blocked square
+     * has cut off from each other, leaving the last unfinished part with the
+     * old label.
+     */
+    void split(int[] neighbors, int count, int old) {
+      for (int i = 0; i < count; ++i) {
+        this.start(i, neighbors[i], old);
+      }
+      int keeper = this.flood(count);
+      int[] labels = new int[4];
+      for (int i = 0; i < count; ++i) {
+        int group = this.group(i);
+        if (group == keeper) {
+          this.relabel(i, old);
+        } else {
+          if (labels[group] == 0) {
+            labels[group] = this.nextLabel++;
+          }
+          this.relabel(i, labels[group]);
+        }
+      }
+    }
+
+    /**
+     * Merges the regions around the opened square into the largest of them.
+     */
+    void join(int cell, int[] neighbors, int count) {
+      int floods = 0;
+      for (int i = 0; i < count; ++i) {
+        int label = this.get(neighbors[i]);
+        boolean seen = false;
+        for (int j = 0; j < floods; ++j) {
+          seen |= this.from[j] == label;
+        }
+        if (!seen) {
+          this.start(floods++, neighbors[i], label);
+        }
+      }
+      // regions with different labels never meet, so the unfinished flood is
+      // in the largest region
+      int joined = this.from[this.flood(floods)];
+      for (int i = 0; i < floods; ++i) {
+        this.relabel(i, joined);
+      }
+      this.set(cell, joined);
+    }
+
+    private void start(int flood, int cell, int label) {
+      if (this.queues[flood] == null) {
+        this.queues[flood] = new int[64];
+      }
+      this.queues[flood][0] = cell;
+      this.heads[flood] = 0;
+      this.tails[flood] = 1;
+      this.from[flood] = label;
+      this.groups[flood] = flood;
+      this.set(cell, -1 - flood);
+    }
+
+    /**
+     * Steps the floods in lockstep until at most one group of them is still
+     * unfinished.
+     *
+     * @return That group, or the group of the first flood if all are
+     *         finished.
+     */
+    private int flood(int count) {
+      while (true) {
+        int active = -1;
+        boolean several = false;
+        for (int i = 0; i < count; ++i) {
+          if (this.heads[i] < this.tails[i]) {
+            int group = this.group(i);
+            if (active < 0) {
+              active = group;
+            } else if (group != active) {
+              several = true;
+            }
+          }
+        }
+        if (!several) {
+          return active >= 0 ? active : this.group(0);
+        }
+        for (int i = 0; i < count; ++i) {
+          if (this.heads[i] < this.tails[i]) {
+            this.step(i);
+          }
+        }
+      }
+    }
+
+    private void step(int flood) {
+      int cell = this.queues[flood][this.heads[flood]++];
+      int open;
+      if (this.masks != null) {
+        open = Grid.mask(this.masks, cell);
+      } else {
+        open = this.grid.neighborMask(cell / this.columns, cell % this.columns);
+      }
+      if ((open & Grid.UP) != 0) {
+        this.visit(flood, cell - this.columns);
+      }
+      if ((open & Grid.DOWN) != 0) {
+        this.visit(flood, cell + this.columns);
+      }
+      if ((open & Grid.LEFT) != 0) {
+        this.visit(flood, cell - 1);
+      }
+      if ((open & Grid.RIGHT) != 0) {
+        this.visit(flood, cell + 1);
+      }
+    }
+
+    private void visit(int flood, int cell) {
+      int label = this.get(cell);
+      if (label == this.from[flood]) {
+        this.set(cell, -1 - flood);
+        int tail = this.tails[flood];
+        if (tail == this.queues[flood].length) {
+          this.queues[flood] = Arrays.copyOf(this.queues[flood], tail * 2);
+        }
+        this.queues[flood][tail] = cell;
+        this.tails[flood] = tail + 1;
+      } else if (label < 0) {
+        // another flood got here first, so the two are in one region
+        int a = this.group(flood);
+        int b = this.group(-1 - label);
+        if (a != b) {
+          this.groups[Math.max(a, b)] = Math.min(a, b);
+        }
+      }
+    }
+
+    private int group(int flood) {
+      while (this.groups[flood] != flood) {
+        flood = this.groups[flood];
+      }
+      return flood;
+    }
+
+    /**
+     * Gives every square the flood has marked its final label.
+     */
+    private void relabel(int flood, int label) {
+      int[] queue = this.queues[flood];
+      for (int i = 0; i < this.tails[flood]; ++i) {
+        this.set(queue[i], label);
+      }
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package edu.uab.cis.search.maze;
+
+/**
+ * The cost of each step of a path, for searching terrain where some steps cost
+ * more than others. Without an edge cost, a {@link Solver} counts every step
+ * as 1.
+ *
+ * Squares are given as cell indices, {@code row * columns + column}. Costs
+ * must be at least 1, and the total cost of any path must fit in an
+ * {@code int}. Implementations are called from every thread searching with the
+ * options they are registered with, and must be thread-safe.
+ *
+ * @see SolverOptions#edgeCost(EdgeCost)
+ * @see CellCosts
+ */
+public interface EdgeCost {
+
+  /**
+   * @param from
+   *          The cell index of an open square.
+   * @param to
+   *          The cell index of an open square next to it.
+   * @return The cost, at least 1, of stepping from one square to the other.
+   */
+  int cost(int from, int to);
+
+  /**
+   * @return The lowest cost of any step, at least 1. The default Manhattan
+   *         heuristic is scaled by it, so that it stays a lower bound.
+   */
+  int minimumCost();
+}
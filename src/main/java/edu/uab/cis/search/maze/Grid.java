@@ -0,0 +1,459 @@
+package edu.uab.cis.search.maze;
+
+import java.nio.LongBuffer;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A rectangular grid of squares, some of which are blocked by obstacles.
+ * 
+ * Obstacles are stored as a packed bitset with one bit per square, indexed by
+ * {@code row * columns + column}, so that obstacle tests are plain array reads
+ * rather than hash lookups. A grid never changes once created, so it can be
+ * shared freely between threads and between any number of {@link Query}s.
+ * 
+ * Changing an obstacle creates a new grid with {@link #withBlocked}. The new
+ * grid belongs to the same lineage as the old one but has a higher
+ * {@link #getVersion() version}, so that anything computed for the old grid,
+ * such as cached paths, can be recognized as out of date.
+ * 
+ * The bitset is usually a {@code long[]}, but a grid loaded with
+ * {@link MazeFile#map} reads it straight from a memory-mapped file instead.
+ * 
+ * For the searches, a grid can also hold a 4-bit mask per square of which of
+ * its neighbors are open, so that a search finds all the neighbors of a square
+ * with one array read. Building them takes a pass over the whole grid, which
+ * only pays off for a grid that is searched again, so the first search of a
+ * grid probes the bitset instead and the second one builds them.
+ * The masks are split into pages of {@link #PAGE_SIZE} squares, which
+ * {@link #withBlocked} shares between the old and new grid, copying only the
+ * pages holding the changed square's neighbors, and the new grid counts as
+ * searched if the old one was.
+ * 
+ * Likewise, a grid can label its connected regions of open squares, so that
+ * {@link #isConnected} tells in constant time whether any path at all joins
+ * two squares. The labels are also built on first use and kept exact by
+ * {@link #withBlocked}.
+ */
+public final class Grid {
+
+  private static final AtomicLong LINEAGES = new AtomicLong();
+
+  // bits of a neighbor mask, one per direction in IndexedAStar order
+  static final int UP = 1 << IndexedAStar.UP;
+  static final int DOWN = 1 << IndexedAStar.DOWN;
+  static final int LEFT = 1 << IndexedAStar.LEFT;
+  static final int RIGHT = 1 << IndexedAStar.RIGHT;
+
+  // neighbor masks are stored in pages of PAGE_SIZE squares
+  static final int PAGE_SHIFT = 12;
+  static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+  static final int PAGE_MASK = PAGE_SIZE - 1;
+
+  private final int rows;
+  private final int columns;
+  // exactly one of these holds the bitset
+  private final long[] obstacles;
+  private final LongBuffer mappedObstacles;
+  private final long lineage;
+  private final int version;
+
+  // built on first use; a racing thread may build an identical copy
+  private volatile byte[][] neighborMasks;
+  private volatile boolean searched;
+  private volatile Components components;
+
+  /**
+   * Creates a rectangular grid.
+   * 
+   * @param rows
+   *          The number of rows of squares in the grid.
+   * @param columns
+   *          The number of columns of squares in the grid.
+   * @param obstacles
+   *          Squares within the grid that cannot be traveled through. Squares
+   *          outside the grid are ignored, since they are blocked anyway.
+   */
+  public Grid(int rows, int columns, Set<Square> obstacles) {
+    this(rows, columns, pack(rows, columns, obstacles));
+  }
+
+  /**
+   * Creates a rectangular grid from an already packed obstacle bitset.
+   * 
+   * @param rows
+   *          The number of rows of squares in the grid.
+   * @param columns
+   *          The number of columns of squares in the grid.
+   * @param obstacles
+   *          One bit per square, indexed by {@code row * columns + column}, set
+   *          for squares that cannot be traveled through. The array is used
+   *          directly, not copied, and must not be modified afterwards.
+   */
+  Grid(int rows, int columns, long[] obstacles) {
+    this(rows, columns, obstacles, LINEAGES.incrementAndGet(), 0);
+  }
+
+  /**
+   * Creates a rectangular grid that reads its packed obstacle bitset from a
+   * buffer, typically one mapped from a file, without copying it.
+   * 
+   * @param rows
+   *          The number of rows of squares in the grid.
+   * @param columns
+   *          The number of columns of squares in the grid.
+   * @param obstacles
+   *          The bitset, laid out as for {@link #Grid(int, int, long[])},
+   *          starting at index 0 of the buffer. The buffer must not be
+   *          modified afterwards.
+   */
+  Grid(int rows, int columns, LongBuffer obstacles) {
+    if (obstacles.limit() < words(rows, columns)) {
+      throw new IllegalArgumentException("Obstacle bitset is too small for the grid");
+    }
+    this.rows = rows;
+    this.columns = columns;
+    this.obstacles = null;
+    this.mappedObstacles = obstacles;
+    this.lineage = LINEAGES.incrementAndGet();
+    this.version = 0;
+  }
+
+  private Grid(int rows, int columns, long[] obstacles, long lineage, int version) {
+    if (obstacles.length < words(rows, columns)) {
+      throw new IllegalArgumentException("Obstacle bitset is too small for the grid");
+    }
+    this.rows = rows;
+    this.columns = columns;
+    this.obstacles = obstacles;
+    this.mappedObstacles = null;
+    this.lineage = lineage;
+    this.version = version;
+  }
+
+  /**
+   * Creates a copy of this grid with one square blocked or cleared.
+   * 
+   * @param square
+   *          The square to change. It must be within the grid.
+   * @param blocked
+   *          True to place an obstacle on the square, false to remove one.
+   * @return The new grid, the next version in this grid's lineage.
+   */
+  public Grid withBlocked(Square square, boolean blocked) {
+    int row = square.getRow();
+    int column = square.getColumn();
+    if (row < 0 || row >= this.rows || column < 0 || column >= this.columns) {
+      throw new IllegalArgumentException("Square is outside the grid: " + square);
+    }
+    long[] bits = this.copyObstacles();
+    int index = row * this.columns + column;
+    if (blocked) {
+      bits[index >>> 6] |= 1L << index;
+    } else {
+      bits[index >>> 6] &= ~(1L << index);
+    }
+    Grid grid = new Grid(this.rows, this.columns, bits, this.lineage, this.version + 1);
+    byte[][] pages = this.neighborMasks;
+    if (pages != null) {
+      // only the changed square's neighbors see a different neighbor, so only
+      // their pages are copied and the rest are shared
+      byte[][] masks = pages.clone();
+      if (row > 0) {
+        setMask(masks, pages, index - this.columns, grid.neighborMask(row - 1, column));
+      }
+      if (row < this.rows - 1) {
+        setMask(masks, pages, index + this.columns, grid.neighborMask(row + 1, column));
+      }
+      if (column > 0) {
+        setMask(masks, pages, index - 1, grid.neighborMask(row, column - 1));
+      }
+      if (column < this.columns - 1) {
+        setMask(masks, pages, index + 1, grid.neighborMask(row, column + 1));
+      }
+      grid.neighborMasks = masks;
+    }
+    grid.searched = this.searched;
+    Components components = this.components;
+    if (components != null) {
+      if (this.isBlocked(row, column) == blocked) {
+        grid.components = components;
+      } else {
+        grid.components = components.withChanged(grid, index);
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * @return The number of times obstacles were changed to get from the
+   *         original grid of this lineage to this grid.
+   */
+  public int getVersion() {
+    return this.version;
+  }
+
+  /**
+   * @return An identifier shared by a grid and every grid derived from it with
+   *         {@link #withBlocked}.
+   */
+  long getLineage() {
+    return this.lineage;
+  }
+
+  /**
+   * @return The number of rows of squares in the grid.
+   */
+  public int getRows() {
+    return this.rows;
+  }
+
+  /**
+   * @return The number of columns of squares in the grid.
+   */
+  public int getColumns() {
+    return this.columns;
+  }
+
+  /**
+   * Determines if the given square is blocked by an obstacle.
+   * 
+   * @param square
+   *          A square from the grid to be tested.
+   * @return True if the square represents an obstacle (or is out of bounds).
+   */
+  public boolean isBlocked(Square square) {
+    return this.isBlocked(square.getRow(), square.getColumn());
+  }
+
+  /**
+   * Determines if the square at the given row and column is blocked by an
+   * obstacle.
+   * 
+   * @param row
+   *          The row of the square to be tested.
+   * @param column
+   *          The column of the square to be tested.
+   * @return True if the square represents an obstacle (or is out of bounds).
+   */
+  public boolean isBlocked(int row, int column) {
+    if (row < 0 || row >= this.rows || column < 0 || column >= this.columns) {
+      return true;
+    }
+    int index = row * this.columns + column;
+    return (this.word(index >>> 6) & (1L << index)) != 0;
+  }
+
+  /**
+   * Determines if a path of open squares joins two squares. The first call
+   * labels the connected regions of the grid, which takes time proportional to
+   * its size; after that each call takes constant time.
+   * 
+   * @return True if both squares are within the grid, not blocked, and in the
+   *         same connected region.
+   */
+  public boolean isConnected(Square a, Square b) {
+    if (this.isBlocked(a) || this.isBlocked(b)) {
+      return false;
+    }
+    Components components = this.components();
+    return components.label(a.getRow() * this.columns + a.getColumn()) == components.label(b.getRow()
+        * this.columns + b.getColumn());
+  }
+
+  /**
+   * @return True if the connected regions have already been labeled, so that
+   *         {@link #isConnected} costs nothing more than two lookups.
+   */
+  boolean hasComponents() {
+    return this.components != null;
+  }
+
+  /**
+   * @return The labels of the connected regions of open squares.
+   */
+  Components components() {
+    Components components = this.components;
+    if (components == null) {
+      components = Components.of(this);
+      this.components = components;
+    }
+    return components;
+  }
+
+  /**
+   * Called once by each search of this grid.
+   * 
+   * @return The {@link #neighborMasks()}, or null if this is the first search
+   *         of the grid and they have not been built yet, in which case the
+   *         search should use {@link #neighborMask} instead.
+   */
+  byte[][] searchMasks() {
+    byte[][] masks = this.neighborMasks;
+    if (masks == null && !this.searched) {
+      this.searched = true;
+      return null;
+    }
+    return masks != null ? masks : this.neighborMasks();
+  }
+
+  /**
+   * @return For every square, a mask of {@link #UP}, {@link #DOWN},
+   *         {@link #LEFT} and {@link #RIGHT} with a bit set for each neighbor
+   *         that is within the grid and not blocked, in pages to be read with
+   *         {@link #mask}. The arrays must not be modified.
+   */
+  byte[][] neighborMasks() {
+    byte[][] masks = this.neighborMasks;
+    if (masks == null) {
+      int cells = this.rows * this.columns;
+      masks = new byte[(cells + PAGE_MASK) >>> PAGE_SHIFT][];
+      for (int page = 0; page < masks.length; ++page) {
+        masks[page] = new byte[Math.min(PAGE_SIZE, cells - (page << PAGE_SHIFT))];
+      }
+      int index = 0;
+      for (int row = 0; row < this.rows; ++row) {
+        for (int column = 0; column < this.columns; ++column, ++index) {
+          masks[index >>> PAGE_SHIFT][index & PAGE_MASK] = this.neighborMask(row, column);
+        }
+      }
+      this.neighborMasks = masks;
+    }
+    return masks;
+  }
+
+  /**
+   * @return The {@link #neighborMasks()} if they have been built, or null, in
+   *         which case {@link #neighborMask} should be used instead.
+   */
+  byte[][] builtMasks() {
+    return this.neighborMasks;
+  }
+
+  /**
+   * @return The mask of the square with the given index, {@code row * columns
+   *         + column}, from the pages returned by {@link #neighborMasks()}.
+   */
+  static int mask(byte[][] masks, int cell) {
+    return masks[cell >>> PAGE_SHIFT][cell & PAGE_MASK];
+  }
+
+  /**
+   * Sets the mask of one square in a copy of the page table, first copying its
+   * page if the copy still shares it with the original.
+   */
+  private static void setMask(byte[][] masks, byte[][] original, int cell, byte mask) {
+    int page = cell >>> PAGE_SHIFT;
+    if (masks[page] == original[page]) {
+      masks[page] = original[page].clone();
+    }
+    masks[page][cell & PAGE_MASK] = mask;
+  }
+
+  /**
+   * @return The {@link #neighborMasks() neighbor mask} of the square at the
+   *         given row and column, probed from the bitset.
+   */
+  byte neighborMask(int row, int column) {
+    int mask = 0;
+    if (!this.isBlocked(row - 1, column)) {
+      mask |= UP;
+    }
+    if (!this.isBlocked(row + 1, column)) {
+      mask |= DOWN;
+    }
+    if (!this.isBlocked(row, column - 1)) {
+      mask |= LEFT;
+    }
+    if (!this.isBlocked(row, column + 1)) {
+      mask |= RIGHT;
+    }
+    return (byte) mask;
+  }
+
+  /**
+   * @return The given 64-bit word of the packed obstacle bitset.
+   */
+  long word(int index) {
+    long[] obstacles = this.obstacles;
+    if (obstacles != null) {
+      return obstacles[index];
+    }
+    return this.mappedObstacles.get(index);
+  }
+
+  /**
+   * Reads 64 squares of a row at once, for scans that skip over open runs.
+   * 
+   * @return A bit for each of the 64 squares from the given row and column
+   *         rightwards, the lowest for the given column, set if the square is
+   *         blocked. Squares outside the grid count as blocked.
+   */
+  long blockedRun(int row, int column) {
+    if (row < 0 || row >= this.rows || column >= this.columns) {
+      return -1L;
+    }
+    if (column < 0) {
+      int outside = -column;
+      if (outside >= 64) {
+        return -1L;
+      }
+      return (this.blockedRun(row, 0) << outside) | ((1L << outside) - 1);
+    }
+    int index = row * this.columns + column;
+    int word = index >>> 6;
+    int offset = index & 63;
+    long run = this.word(word) >>> offset;
+    if (offset != 0 && word < (this.rows * this.columns - 1) >>> 6) {
+      run |= this.word(word + 1) << (64 - offset);
+    }
+    int inside = this.columns - column;
+    if (inside < 64) {
+      run |= -1L << inside;
+    }
+    return run;
+  }
+
+  /**
+   * @return A copy of the packed obstacle bitset, as an array.
+   */
+  long[] copyObstacles() {
+    if (this.obstacles != null) {
+      return this.obstacles.clone();
+    }
+    long[] bits = new long[words(this.rows, this.columns)];
+    this.mappedObstacles.duplicate().get(bits);
+    return bits;
+  }
+
+  /**
+   * @return The number of 64-bit words needed to hold one bit per square.
+   */
+  static int words(int rows, int columns) {
+    if (rows < 0 || columns < 0) {
+      throw new IllegalArgumentException("Grid dimensions must not be negative");
+    }
+    long cells = (long) rows * columns;
+    if (cells > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Grid has too many squares: " + cells);
+    }
+    return (int) ((cells + 63) >>> 6);
+  }
+
+  /**
+   * Packs a set of obstacle squares into a bitset. Squares outside the grid
+   * are ignored.
+   */
+  private static long[] pack(int rows, int columns, Set<Square> obstacles) {
+    long[] bits = new long[words(rows, columns)];
+    for (Square square : obstacles) {
+      int row = square.getRow();
+      int column = square.getColumn();
+      if (row >= 0 && row < rows && column >= 0 && column < columns) {
+        int index = row * columns + column;
+        bits[index >>> 6] |= 1L << index;
+      }
+    }
+    return bits;
+  }
+}
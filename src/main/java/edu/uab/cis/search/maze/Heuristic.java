@@ -0,0 +1,30 @@
+package edu.uab.cis.search.maze;
+
+/**
+ * Estimates the cost of the cheapest path from a square to the goal, to order
+ * the squares explored by a {@link Solver} in place of its default Manhattan
+ * distance.
+ *
+ * For the path to be optimal, the estimate must be consistent: it must be 0
+ * at the goal, and must never drop by more than the cost of a step when moving
+ * to a neighboring square. Such an estimate never exceeds the true cost.
+ * Implementations are called from every thread searching with the options they
+ * are registered with, and must be thread-safe.
+ *
+ * @see SolverOptions#heuristic(Heuristic)
+ */
+public interface Heuristic {
+
+  /**
+   * @param row
+   *          The row of an open square.
+   * @param column
+   *          The column of the square.
+   * @param goalRow
+   *          The row of the goal square.
+   * @param goalColumn
+   *          The column of the goal square.
+   * @return A lower bound on the cost of getting from the square to the goal.
+   */
+  int estimate(int row, int column, int goalRow, int goalColumn);
+}
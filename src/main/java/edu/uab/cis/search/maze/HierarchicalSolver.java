@@ -0,0 +1,627 @@
+package edu.uab.cis.search.maze;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hierarchical path-finding (HPA*) over a fixed {@link Grid}.
+ * 
+ * The grid is split into square clusters. Where two neighboring clusters share
+ * a run of open squares along their border, the run is an entrance, and one or
+ * two of its square pairs become transitions: nodes of an abstract graph,
+ * connected across the border with cost 1. The shortest distance between every
+ * pair of nodes within a cluster, moving only inside that cluster, is computed
+ * once when the solver is built.
+ * 
+ * A query connects its start and goal squares to the nodes of their clusters,
+ * runs A* over the much smaller abstract graph, and then refines each abstract
+ * edge into the squares it stands for.
+ * 
+ * By default the path is near-optimal. If every border square pair is made a
+ * transition (the exact option), every border crossing of an optimal path is
+ * represented and the path is optimal, at the cost of a larger abstract graph
+ * and a slower build.
+ * 
+ * A built solver is immutable apart from the cluster searches used by queries,
+ * which are pooled: each query borrows one for its duration and returns it, so
+ * queries may run on any number of threads and a solver never holds more
+ * searches than it has run concurrently.
+ */
+public class HierarchicalSolver {
+
+  /**
+   * The outcome of one query.
+   */
+  public static class Result {
+
+    private final List<Square> path;
+    private final int abstractNodesExpanded;
+    private final long searchNanos;
+    private final long refineNanos;
+
+    Result(List<Square> path, int abstractNodesExpanded, long searchNanos, long refineNanos) {
+      this.path = path;
+      this.abstractNodesExpanded = abstractNodesExpanded;
+      this.searchNanos = searchNanos;
+      this.refineNanos = refineNanos;
+    }
+
+    /**
+     * @return The squares along the path from the start to the goal, including
+     *         both, or an empty list if the goal cannot be reached.
+     */
+    public List<Square> getPathFromStartToGoal() {
+      return this.path;
+    }
+
+    /**
+     * @return The number of abstract graph nodes expanded by the search.
+     */
+    public int getAbstractNodesExpanded() {
+      return this.abstractNodesExpanded;
+    }
+
+    /**
+     * @return The time spent connecting the start and goal and searching the
+     *         abstract graph, in nanoseconds.
+     */
+    public long getSearchNanos() {
+      return this.searchNanos;
+    }
+
+    /**
+     * @return The time spent refining the abstract path into squares, in
+     *         nanoseconds.
+     */
+    public long getRefineNanos() {
+      return this.refineNanos;
+    }
+  }
+
+  private static final int UNREACHED = Integer.MAX_VALUE;
+
+  private final Grid grid;
+  private final int rows;
+  private final int columns;
+  private final int clusterSize;
+  private final int clusterRows;
+  private final int clusterColumns;
+
+  // nodes of cluster k are clusterNodes[clusterStart[k]..clusterStart[k+1])
+  private final int[] clusterStart;
+  private final int[] clusterNodes;
+  // the grid cell of each node
+  private final int[] nodeCell;
+  // edges of node n are edgeTarget/edgeCost[edgeStart[n]..edgeStart[n+1])
+  private final int[] edgeStart;
+  private final int[] edgeTarget;
+  private final int[] edgeCost;
+
+  private final long buildNanos;
+
+  // idle cluster searches, borrowed by queries
+  private final ConcurrentLinkedQueue<ClusterSearch> searches = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Builds the abstract graph for the given grid, with near-optimal paths.
+   * 
+   * @param grid
+   *          The grid to be searched.
+   * @param clusterSize
+   *          The number of rows and of columns of squares in each cluster.
+   */
+  public HierarchicalSolver(Grid grid, int clusterSize) {
+    this(grid, clusterSize, false);
+  }
+
+  /**
+   * Builds the abstract graph for the given grid.
+   * 
+   * @param grid
+   *          The grid to be searched.
+   * @param clusterSize
+   *          The number of rows and of columns of squares in each cluster.
+   * @param exact
+   *          True to make every open square pair along a cluster border a
+   *          transition, so that every path found is optimal.
+   */
+  public HierarchicalSolver(Grid grid, int clusterSize, boolean exact) {
+    if (clusterSize < 1) {
+      throw new IllegalArgumentException("Cluster size must be positive");
+    }
+    long started = System.nanoTime();
+    this.grid = grid;
+    this.rows = grid.getRows();
+    this.columns = grid.getColumns();
+    this.clusterSize = clusterSize;
+    this.clusterRows = (this.rows + clusterSize - 1) / clusterSize;
+    this.clusterColumns = (this.columns + clusterSize - 1) / clusterSize;
+
+    // find the transitions along every cluster border
+    Map<Integer, Integer> nodes = new HashMap<>();
+    IntList cells = new IntList();
+    IntList edges = new IntList();
+    for (int border = clusterSize; border < this.columns; border += clusterSize) {
+      this.addEntrances(border, true, exact, nodes, cells, edges);
+    }
+    for (int border = clusterSize; border < this.rows; border += clusterSize) {
+      this.addEntrances(border, false, exact, nodes, cells, edges);
+    }
+    this.nodeCell = cells.toArray();
+
+    // group the nodes by cluster
+    int clusters = this.clusterRows * this.clusterColumns;
+    this.clusterStart = new int[clusters + 1];
+    for (int cell : this.nodeCell) {
+      ++this.clusterStart[this.clusterOf(cell) + 1];
+    }
+    for (int k = 0; k < clusters; ++k) {
+      this.clusterStart[k + 1] += this.clusterStart[k];
+    }
+    this.clusterNodes = new int[this.nodeCell.length];
+    int[] fill = Arrays.copyOf(this.clusterStart, clusters);
+    for (int node = 0; node < this.nodeCell.length; ++node) {
+      this.clusterNodes[fill[this.clusterOf(this.nodeCell[node])]++] = node;
+    }
+
+    // connect the nodes within each cluster
+    ClusterSearch search = new ClusterSearch();
+    for (int k = 0; k < clusters; ++k) {
+      for (int i = this.clusterStart[k]; i < this.clusterStart[k + 1]; ++i) {
+        int from = this.clusterNodes[i];
+        search.run(this.nodeCell[from]);
+        for (int j = this.clusterStart[k]; j < this.clusterStart[k + 1]; ++j) {
+          int to = this.clusterNodes[j];
+          int distance = search.distance(this.nodeCell[to]);
+          if (to != from && distance != UNREACHED) {
+            edges.add(from);
+            edges.add(to);
+            edges.add(distance);
+          }
+        }
+      }
+    }
+
+    // store the edges by source node
+    int nodeCount = this.nodeCell.length;
+    int edgeCount = edges.size() / 3;
+    this.edgeStart = new int[nodeCount + 1];
+    for (int e = 0; e < edgeCount; ++e) {
+      ++this.edgeStart[edges.get(3 * e) + 1];
+    }
+    for (int n = 0; n < nodeCount; ++n) {
+      this.edgeStart[n + 1] += this.edgeStart[n];
+    }
+    this.edgeTarget = new int[edgeCount];
+    this.edgeCost = new int[edgeCount];
+    fill = Arrays.copyOf(this.edgeStart, nodeCount);
+    for (int e = 0; e < edgeCount; ++e) {
+      int slot = fill[edges.get(3 * e)]++;
+      this.edgeTarget[slot] = edges.get(3 * e + 1);
+      this.edgeCost[slot] = edges.get(3 * e + 2);
+    }
+    this.buildNanos = System.nanoTime() - started;
+  }
+
+  /**
+   * @return The time it took to build the abstract graph, in nanoseconds.
+   */
+  public long getBuildNanos() {
+    return this.buildNanos;
+  }
+
+  /**
+   * @return The number of nodes in the abstract graph.
+   */
+  public int getNodeCount() {
+    return this.nodeCell.length;
+  }
+
+  /**
+   * @return The number of directed edges in the abstract graph.
+   */
+  public int getEdgeCount() {
+    return this.edgeTarget.length;
+  }
+
+  /**
+   * @return The number of rows and of columns of squares in each cluster.
+   */
+  public int getClusterSize() {
+    return this.clusterSize;
+  }
+
+  /**
+   * Finds a path for the given query.
+   * 
+   * @param query
+   *          The start and goal squares.
+   * @return The path and the metrics of the search.
+   */
+  public Result solve(Query query) {
+    long started = System.nanoTime();
+    if (this.grid.isBlocked(query.getStart())) {
+      throw new IllegalArgumentException("Start square is blocked");
+    }
+    if (this.grid.isBlocked(query.getGoal())) {
+      throw new IllegalArgumentException("Goal square is blocked");
+    }
+    int start = query.getStart().getRow() * this.columns + query.getStart().getColumn();
+    int goal = query.getGoal().getRow() * this.columns + query.getGoal().getColumn();
+    if (start == goal) {
+      List<Square> path = new ArrayList<>();
+      path.add(query.getStart());
+      return new Result(path, 0, System.nanoTime() - started, 0);
+    }
+
+    ClusterSearch search = this.searches.poll();
+    if (search == null) {
+      search = new ClusterSearch();
+    }
+    try {
+      return this.search(query, search, started, start, goal);
+    } finally {
+      this.searches.offer(search);
+    }
+  }
+
+  private Result search(Query query, ClusterSearch search, long started, int start, int goal) {
+    // the start and goal are temporary nodes, numbered after the real ones
+    int nodeCount = this.nodeCell.length;
+    int startNode = nodeCount;
+    int goalNode = nodeCount + 1;
+    int goalCluster = this.clusterOf(goal);
+    int[] startEdges = this.connect(search, start, goal);
+    int[] goalDistance = this.connect(search, goal, -1);
+
+    // A* over the abstract graph
+    int goalRow = goal / this.columns;
+    int goalColumn = goal % this.columns;
+    int[] g = new int[nodeCount + 2];
+    int[] parent = new int[nodeCount + 2];
+    boolean[] closed = new boolean[nodeCount + 2];
+    Arrays.fill(g, UNREACHED);
+    CellHeap open = new CellHeap();
+    open.ensureCells(nodeCount + 2);
+    g[startNode] = 0;
+    parent[startNode] = -1;
+    open.push(startNode, 0, 0);
+    int expanded = 0;
+    boolean found = false;
+    while (!open.isEmpty()) {
+      int node = open.pop();
+      closed[node] = true;
+      ++expanded;
+      if (node == goalNode) {
+        found = true;
+        break;
+      }
+      if (node == startNode) {
+        for (int i = 0; i < startEdges.length; i += 2) {
+          int target = startEdges[i] < 0 ? goalNode : startEdges[i];
+          this.relax(open, g, parent, closed, node, target, startEdges[i + 1], goalRow, goalColumn, goal);
+        }
+        continue;
+      }
+      for (int e = this.edgeStart[node]; e < this.edgeStart[node + 1]; ++e) {
+        this.relax(open, g, parent, closed, node, this.edgeTarget[e], this.edgeCost[e], goalRow, goalColumn, goal);
+      }
+      if (this.clusterOf(this.nodeCell[node]) == goalCluster) {
+        for (int i = 0; i < goalDistance.length; i += 2) {
+          if (goalDistance[i] == node) {
+            this.relax(open, g, parent, closed, node, goalNode, goalDistance[i + 1], goalRow, goalColumn, goal);
+          }
+        }
+      }
+    }
+    long searched = System.nanoTime();
+    if (!found) {
+      return new Result(new ArrayList<Square>(), expanded, searched - started, 0);
+    }
+
+    // refine each abstract edge into squares
+    IntList abstractPath = new IntList();
+    for (int node = goalNode; node >= 0; node = parent[node]) {
+      abstractPath.add(node == startNode ? start : node == goalNode ? goal : this.nodeCell[node]);
+    }
+    List<Square> path = new ArrayList<>(g[goalNode] + 1);
+    path.add(query.getStart());
+    for (int i = abstractPath.size() - 1; i > 0; --i) {
+      int from = abstractPath.get(i);
+      int to = abstractPath.get(i - 1);
+      if (this.clusterOf(from) != this.clusterOf(to)) {
+        path.add(new Square(to / this.columns, to % this.columns));
+      } else {
+        search.run(from);
+        search.appendPath(to, path);
+      }
+    }
+    return new Result(path, expanded, searched - started, System.nanoTime() - searched);
+  }
+
+  /**
+   * @return The number of idle cluster searches kept for later queries.
+   */
+  int pooledSearches() {
+    return this.searches.size();
+  }
+
+  private void relax(CellHeap open, int[] g, int[] parent, boolean[] closed, int from, int to, int cost,
+      int goalRow, int goalColumn, int goal) {
+    if (closed[to]) {
+      return;
+    }
+    int gNext = g[from] + cost;
+    if (gNext >= g[to]) {
+      return;
+    }
+    int cell = to < this.nodeCell.length ? this.nodeCell[to] : goal;
+    int h = Math.abs(cell / this.columns - goalRow) + Math.abs(cell % this.columns - goalColumn);
+    boolean queued = g[to] != UNREACHED;
+    g[to] = gNext;
+    parent[to] = from;
+    if (queued) {
+      open.decreaseKey(to, gNext + h, h);
+    } else {
+      open.push(to, gNext + h, h);
+    }
+  }
+
+  /**
+   * Finds the distances from a square to the nodes of its cluster.
+   * 
+   * @param cell
+   *          The square to connect.
+   * @param other
+   *          Another square whose distance is also wanted, if it is in the same
+   *          cluster, or -1.
+   * @return Pairs of node and distance, with node -1 standing for the other
+   *         square.
+   */
+  private int[] connect(ClusterSearch search, int cell, int other) {
+    int cluster = this.clusterOf(cell);
+    search.run(cell);
+    IntList edges = new IntList();
+    for (int i = this.clusterStart[cluster]; i < this.clusterStart[cluster + 1]; ++i) {
+      int node = this.clusterNodes[i];
+      int distance = search.distance(this.nodeCell[node]);
+      if (distance != UNREACHED) {
+        edges.add(node);
+        edges.add(distance);
+      }
+    }
+    if (other >= 0 && this.clusterOf(other) == cluster && search.distance(other) != UNREACHED) {
+      edges.add(-1);
+      edges.add(search.distance(other));
+    }
+    return edges.toArray();
+  }
+
+  /**
+   * Adds the transitions along one border between clusters.
+   * 
+   * @param border
+   *          The first column (or row) of the clusters on the far side.
+   * @param vertical
+   *          True if the border runs between columns, false if between rows.
+   */
+  private void addEntrances(int border, boolean vertical, boolean exact, Map<Integer, Integer> nodes,
+      IntList cells, IntList edges) {
+    int length = vertical ? this.rows : this.columns;
+    // each cluster along the border has its own entrances
+    for (int segment = 0; segment < length; segment += this.clusterSize) {
+      int segmentEnd = Math.min(length, segment + this.clusterSize);
+      int i = segment;
+      while (i < segmentEnd) {
+        if (!this.isOpenPair(border, i, vertical)) {
+          ++i;
+          continue;
+        }
+        int runStart = i;
+        while (i < segmentEnd && this.isOpenPair(border, i, vertical)) {
+          ++i;
+        }
+        int runEnd = i - 1;
+        if (exact) {
+          for (int j = runStart; j <= runEnd; ++j) {
+            this.addTransition(border, j, vertical, nodes, cells, edges);
+          }
+        } else if (runEnd - runStart + 1 < 6) {
+          this.addTransition(border, (runStart + runEnd) / 2, vertical, nodes, cells, edges);
+        } else {
+          this.addTransition(border, runStart, vertical, nodes, cells, edges);
+          this.addTransition(border, runEnd, vertical, nodes, cells, edges);
+        }
+      }
+    }
+  }
+
+  private boolean isOpenPair(int border, int i, boolean vertical) {
+    if (vertical) {
+      return !this.grid.isBlocked(i, border - 1) && !this.grid.isBlocked(i, border);
+    }
+    return !this.grid.isBlocked(border - 1, i) && !this.grid.isBlocked(border, i);
+  }
+
+  private void addTransition(int border, int i, boolean vertical, Map<Integer, Integer> nodes, IntList cells,
+      IntList edges) {
+    int near = vertical ? i * this.columns + border - 1 : (border - 1) * this.columns + i;
+    int far = vertical ? near + 1 : near + this.columns;
+    int nearNode = node(near, nodes, cells);
+    int farNode = node(far, nodes, cells);
+    edges.add(nearNode);
+    edges.add(farNode);
+    edges.add(1);
+    edges.add(farNode);
+    edges.add(nearNode);
+    edges.add(1);
+  }
+
+  private static int node(int cell, Map<Integer, Integer> nodes, IntList cells) {
+    Integer node = nodes.get(cell);
+    if (node == null) {
+      node = cells.size();
+      nodes.put(cell, node);
+      cells.add(cell);
+    }
+    return node;
+  }
+
+  private int clusterOf(int cell) {
+    int row = cell / this.columns;
+    int column = cell - row * this.columns;
+    return (row / this.clusterSize) * this.clusterColumns + column / this.clusterSize;
+  }
+
+  /**
+   * Breadth-first search confined to the cluster of its source square.
+   */
+  private final class ClusterSearch {
+
+    private final int[] distance;
+    private final int[] stamp;
+    private final int[] queue;
+    private int generation;
+    private int top;
+    private int left;
+    private int width;
+    private int height;
+
+    ClusterSearch() {
+      int size = HierarchicalSolver.this.clusterSize;
+      this.distance = new int[size * size];
+      this.stamp = new int[size * size];
+      this.queue = new int[size * size];
+    }
+
+    /**
+     * Computes the distance from the given square to every square of its
+     * cluster, moving only within the cluster.
+     */
+    void run(int source) {
+      int columns = HierarchicalSolver.this.columns;
+      int size = HierarchicalSolver.this.clusterSize;
+      int row = source / columns;
+      int column = source % columns;
+      this.top = row / size * size;
+      this.left = column / size * size;
+      this.height = Math.min(size, HierarchicalSolver.this.rows - this.top);
+      this.width = Math.min(size, columns - this.left);
+      if (++this.generation == Integer.MAX_VALUE) {
+        Arrays.fill(this.stamp, 0);
+        this.generation = 1;
+      }
+      int local = (row - this.top) * this.width + column - this.left;
+      this.stamp[local] = this.generation;
+      this.distance[local] = 0;
+      int head = 0;
+      int tail = 0;
+      this.queue[tail++] = local;
+      Grid grid = HierarchicalSolver.this.grid;
+      while (head < tail) {
+        int current = this.queue[head++];
+        int r = current / this.width;
+        int c = current - r * this.width;
+        int next = this.distance[current] + 1;
+        if (r > 0 && !grid.isBlocked(this.top + r - 1, this.left + c)) {
+          tail = this.visit(current - this.width, next, tail);
+        }
+        if (r < this.height - 1 && !grid.isBlocked(this.top + r + 1, this.left + c)) {
+          tail = this.visit(current + this.width, next, tail);
+        }
+        if (c > 0 && !grid.isBlocked(this.top + r, this.left + c - 1)) {
+          tail = this.visit(current - 1, next, tail);
+        }
+        if (c < this.width - 1 && !grid.isBlocked(this.top + r, this.left + c + 1)) {
+          tail = this.visit(current + 1, next, tail);
+        }
+      }
+    }
+
+    private int visit(int local, int distance, int tail) {
+      if (this.stamp[local] != this.generation) {
+        this.stamp[local] = this.generation;
+        this.distance[local] = distance;
+        this.queue[tail++] = local;
+      }
+      return tail;
+    }
+
+    /**
+     * @return The distance from the last source to the given square of the
+     *         same cluster, or {@link #UNREACHED}.
+     */
+    int distance(int cell) {
+      int local = this.local(cell);
+      return this.stamp[local] == this.generation ? this.distance[local] : UNREACHED;
+    }
+
+    /**
+     * Appends the squares of a shortest path from the last source to the given
+     * square, excluding the source, by walking back down the distances.
+     */
+    void appendPath(int cell, List<Square> path) {
+      int local = this.local(cell);
+      int[] steps = new int[this.distance[local]];
+      for (int i = steps.length - 1; i >= 0; --i) {
+        steps[i] = local;
+        int r = local / this.width;
+        int c = local - r * this.width;
+        int previous = this.distance[local] - 1;
+        if (r > 0 && this.reached(local - this.width, previous)) {
+          local -= this.width;
+        } else if (r < this.height - 1 && this.reached(local + this.width, previous)) {
+          local += this.width;
+        } else if (c > 0 && this.reached(local - 1, previous)) {
+          local -= 1;
+        } else {
+          local += 1;
+        }
+      }
+      for (int step : steps) {
+        path.add(new Square(this.top + step / this.width, this.left + step % this.width));
+      }
+    }
+
+    private boolean reached(int local, int distance) {
+      return this.stamp[local] == this.generation && this.distance[local] == distance;
+    }
+
+    private int local(int cell) {
+      int columns = HierarchicalSolver.this.columns;
+      return (cell / columns - this.top) * this.width + cell % columns - this.left;
+    }
+  }
+
+  /**
+   * A growable list of primitive ints.
+   */
+  private static final class IntList {
+
+    private int[] values = new int[16];
+    private int size;
+
+    void add(int value) {
+      if (this.size == this.values.length) {
+        this.values = Arrays.copyOf(this.values, this.size * 2);
+      }
+      this.values[this.size++] = value;
+    }
+
+    int get(int index) {
+      return this.values[index];
+    }
+
+    int size() {
+      return this.size;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(this.values, this.size);
+    }
+  }
+}
@@ -0,0 +1,411 @@
+package edu.uab.cis.search.maze;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds shortest paths in a maze whose obstacles change, and whose start
+ * square moves, between queries (D* Lite).
+ *
+ * The search runs backwards from the goal and keeps, for every cell, its
+ * distance to the goal (g) and a one-step lookahead of that distance (rhs).
+ * When an obstacle is added or removed, only the rhs values of the changed
+ * square and its neighbors are recomputed, and the next query repairs just the
+ * cells whose distances actually changed instead of searching the whole maze
+ * again. Moving the start square only raises the keys of cells queued from
+ * then on, and cells queued earlier are re-keyed lazily when they come up.
+ *
+ * The solver keeps its own copy of the obstacles, so the {@link Grid} it was
+ * created from is never modified; {@link #getGrid()} returns a snapshot of the
+ * current obstacles. Instances are not thread-safe.
+ */
+public class IncrementalSolver {
+
+  private static final int INFINITY = Integer.MAX_VALUE;
+
+  private final int rows;
+  private final int columns;
+  private final long[] obstacles;
+
+  private final int goal;
+  private int start;
+  // the amount the heuristic has shrunk by since the search began
+  private int keyModifier;
+
+  private final int[] g;
+  private final int[] rhs;
+  private final CellHeap open = new CellHeap();
+
+  private int lastExpansions;
+
+  /**
+   * Creates a solver for the obstacles, start square and goal square of the
+   * given maze.
+   */
+  public IncrementalSolver(Maze maze) {
+    this(maze.getGrid(), maze.getQuery());
+  }
+
+  /**
+   * Creates a solver for the given grid and query.
+   *
+   * @param grid
+   *          The initial obstacles. The grid itself is not modified.
+   * @param query
+   *          The initial start square and the (fixed) goal square.
+   * @throws IllegalArgumentException
+   *           If the start or goal square is blocked.
+   */
+  public IncrementalSolver(Grid grid, Query query) {
+    new Maze(grid, query); // validates the query against the grid
+    this.rows = grid.getRows();
+    this.columns = grid.getColumns();
+    this.obstacles = grid.copyObstacles();
+    this.goal = this.cell(query.getGoal());
+    this.start = this.cell(query.getStart());
+
+    int cells = this.rows * this.columns;
+    this.g = new int[cells];
+    this.rhs = new int[cells];
+    Arrays.fill(this.g, INFINITY);
+    Arrays.fill(this.rhs, INFINITY);
+    this.open.ensureCells(cells);
+    this.rhs[this.goal] = 0;
+    this.open.push(this.key(this.goal), this.goal);
+  }
+
+  /**
+   * @return The current start square.
+   */
+  public Square getStart() {
+    return this.square(this.start);
+  }
+
+  /**
+   * @return The goal square.
+   */
+  public Square getGoal() {
+    return this.square(this.goal);
+  }
+
+  /**
+   * @return True if the given square is currently blocked.
+   */
+  public boolean isBlocked(Square square) {
+    int row = square.getRow();
+    int column = square.getColumn();
+    if (row < 0 || row >= this.rows || column < 0 || column >= this.columns) {
+      return true;
+    }
+    return this.isBlocked(row * this.columns + column);
+  }
+
+  /**
+   * @return A snapshot of the current obstacles.
+   */
+  public Grid getGrid() {
+    return new Grid(this.rows, this.columns, this.obstacles.clone());
+  }
+
+  /**
+   * Moves the start square, e.g. as the agent following the path advances.
+   *
+   * @throws IllegalArgumentException
+   *           If the square is outside the maze or blocked.
+   */
+  public void moveStart(Square square) {
+    if (this.isBlocked(square)) {
+      throw new IllegalArgumentException("Start square is blocked");
+    }
+    int cell = this.cell(square);
+    // queued keys were computed against the old start square; rather than
+    // re-keying them all, raise every key computed from now on by the amount
+    // the heuristic can have shrunk, so the queued keys stay lower bounds
+    this.keyModifier += this.heuristic(this.start, cell);
+    this.start = cell;
+  }
+
+  /**
+   * Adds or removes an obstacle.
+   *
+   * @param square
+   *          The square that changed.
+   * @param blocked
+   *          True if the square is now an obstacle, false if it is now open.
+   * @throws IllegalArgumentException
+   *           If the square is outside the maze, or if it is the start or goal
+   *           square and would become blocked.
+   */
+  public void setBlocked(Square square, boolean blocked) {
+    int row = square.getRow();
+    int column = square.getColumn();
+    if (row < 0 || row >= this.rows || column < 0 || column >= this.columns) {
+      throw new IllegalArgumentException("Square is outside the maze: " + square);
+    }
+    int cell = row * this.columns + column;
+    if (blocked && cell == this.start) {
+      throw new IllegalArgumentException("Start square is blocked");
+    }
+    if (blocked && cell == this.goal) {
+      throw new IllegalArgumentException("Goal square is blocked");
+    }
+    if (this.isBlocked(cell) == blocked) {
+      return;
+    }
+    if (blocked) {
+      this.obstacles[cell >>> 6] |= 1L << cell;
+    } else {
+      this.obstacles[cell >>> 6] &= ~(1L << cell);
+    }
+
+    // only edges into and out of the changed square changed cost
+    this.updateRhs(cell);
+    if (row > 0) {
+      this.updateRhs(cell - this.columns);
+    }
+    if (row < this.rows - 1) {
+      this.updateRhs(cell + this.columns);
+    }
+    if (column > 0) {
+      this.updateRhs(cell - 1);
+    }
+    if (column < this.columns - 1) {
+      this.updateRhs(cell + 1);
+    }
+  }
+
+  /**
+   * Repairs the search after any changes since the last call, and returns the
+   * shortest path from the current start square to the goal.
+   *
+   * @return The squares along the path from the start to the goal, including
+   *         both, or an empty list if the goal cannot be reached.
+   * @throws IllegalStateException
+   *           If the repaired distances do not lead to the goal, which would
+   *           be a bug in the repair.
+   */
+  public List<Square> getPathFromStartToGoal() {
+    this.computeShortestPath();
+    if (this.g[this.start] == INFINITY) {
+      return Collections.emptyList();
+    }
+    List<Square> path = new ArrayList<>(this.g[this.start] + 1);
+    int cell = this.start;
+    path.add(this.square(cell));
+    while (cell != this.goal) {
+      // each step moves to the open neighbor closest to the goal; ties go to
+      // the first neighbor in up, down, left, right order
+      int row = cell / this.columns;
+      int column = cell % this.columns;
+      int best = -1;
+      int bestG = INFINITY;
+      if (row > 0) {
+        int next = cell - this.columns;
+        if (!this.isBlocked(next) && this.g[next] < bestG) {
+          best = next;
+          bestG = this.g[next];
+        }
+      }
+      if (row < this.rows - 1) {
+        int next = cell + this.columns;
+        if (!this.isBlocked(next) && this.g[next] < bestG) {
+          best = next;
+          bestG = this.g[next];
+        }
+      }
+      if (column > 0) {
+        int next = cell - 1;
+        if (!this.isBlocked(next) && this.g[next] < bestG) {
+          best = next;
+          bestG = this.g[next];
+        }
+      }
+      if (column < this.columns - 1) {
+        int next = cell + 1;
+        if (!this.isBlocked(next) && this.g[next] < bestG) {
+          best = next;
+          bestG = this.g[next];
+        }
+      }
+      // every step must bring the path closer to the goal, or the distances
+      // are inconsistent and the walk would never end
+      if (best < 0 || bestG >= this.g[cell]) {
+        throw new IllegalStateException("Distances are inconsistent at " + this.square(cell));
+      }
+      cell = best;
+      path.add(this.square(cell));
+    }
+    return path;
+  }
+
+  /**
+   * @return The number of cells expanded by the most recent call to
+   *         {@link #getPathFromStartToGoal()}.
+   */
+  public int getLastExpansions() {
+    return this.lastExpansions;
+  }
+
+  private void computeShortestPath() {
+    int expansions = 0;
+    CellHeap open = this.open;
+    int[] g = this.g;
+    int[] rhs = this.rhs;
+    int start = this.start;
+    while (!open.isEmpty() && (open.peekKey() < this.key(start) || rhs[start] != g[start])) {
+      int cell = open.peekCell();
+      long oldKey = open.peekKey();
+      long newKey = this.key(cell);
+      if (oldKey < newKey) {
+        // queued before the start moved; re-queue with its current key
+        open.changeKey(cell, newKey);
+        continue;
+      }
+      ++expansions;
+      if (g[cell] > rhs[cell]) {
+        // the distance shrank: settle it and offer it to the neighbors
+        g[cell] = rhs[cell];
+        open.remove(cell);
+        this.relaxNeighbors(cell);
+      } else {
+        // the distance grew: forget it, and let the cell and any neighbor
+        // that relied on it find another way
+        g[cell] = INFINITY;
+        this.updateRhs(cell);
+        this.updateNeighborsRhs(cell);
+      }
+    }
+    this.lastExpansions = expansions;
+  }
+
+  private void relaxNeighbors(int cell) {
+    int distance = this.g[cell] + 1;
+    int row = cell / this.columns;
+    int column = cell % this.columns;
+    if (row > 0) {
+      this.relax(cell - this.columns, distance);
+    }
+    if (row < this.rows - 1) {
+      this.relax(cell + this.columns, distance);
+    }
+    if (column > 0) {
+      this.relax(cell - 1, distance);
+    }
+    if (column < this.columns - 1) {
+      this.relax(cell + 1, distance);
+    }
+  }
+
+  private void relax(int cell, int distance) {
+    if (cell != this.goal && !this.isBlocked(cell) && distance < this.rhs[cell]) {
+      this.rhs[cell] = distance;
+      this.updateVertex(cell);
+    }
+  }
+
+  private void updateNeighborsRhs(int cell) {
+    int row = cell / this.columns;
+    int column = cell % this.columns;
+    if (row > 0) {
+      this.updateRhs(cell - this.columns);
+    }
+    if (row < this.rows - 1) {
+      this.updateRhs(cell + this.columns);
+    }
+    if (column > 0) {
+      this.updateRhs(cell - 1);
+    }
+    if (column < this.columns - 1) {
+      this.updateRhs(cell + 1);
+    }
+  }
+
+  /**
+   * Recomputes the rhs value of a cell from the g values of its neighbors, and
+   * queues or dequeues the cell to match.
+   */
+  private void updateRhs(int cell) {
+    if (cell == this.goal) {
+      this.updateVertex(cell);
+      return;
+    }
+    int best = INFINITY;
+    if (!this.isBlocked(cell)) {
+      int row = cell / this.columns;
+      int column = cell % this.columns;
+      if (row > 0) {
+        best = this.closer(best, cell - this.columns);
+      }
+      if (row < this.rows - 1) {
+        best = this.closer(best, cell + this.columns);
+      }
+      if (column > 0) {
+        best = this.closer(best, cell - 1);
+      }
+      if (column < this.columns - 1) {
+        best = this.closer(best, cell + 1);
+      }
+    }
+    this.rhs[cell] = best;
+    this.updateVertex(cell);
+  }
+
+  private int closer(int best, int neighbor) {
+    int distance = this.g[neighbor];
+    if (distance == INFINITY || this.isBlocked(neighbor)) {
+      return best;
+    }
+    return Math.min(best, distance + 1);
+  }
+
+  /**
+   * Queues a cell whose g and rhs values disagree, and dequeues one whose
+   * values agree.
+   */
+  private void updateVertex(int cell) {
+    boolean queued = this.open.contains(cell);
+    if (this.g[cell] != this.rhs[cell]) {
+      if (queued) {
+        this.open.changeKey(cell, this.key(cell));
+      } else {
+        this.open.push(this.key(cell), cell);
+      }
+    } else if (queued) {
+      this.open.remove(cell);
+    }
+  }
+
+  /**
+   * The D* Lite key of a cell: the estimated length of a path from the start
+   * through the cell, then the cell's own distance, encoded as a single
+   * {@link CellHeap} key. Cells with no known distance get the largest key.
+   */
+  private long key(int cell) {
+    int distance = Math.min(this.g[cell], this.rhs[cell]);
+    if (distance == INFINITY) {
+      return Long.MAX_VALUE;
+    }
+    int estimate = distance + this.heuristic(this.start, cell) + this.keyModifier;
+    return CellHeap.key(estimate, distance);
+  }
+
+  private int heuristic(int from, int to) {
+    int rowDistance = Math.abs(from / this.columns - to / this.columns);
+    int columnDistance = Math.abs(from % this.columns - to % this.columns);
+    return rowDistance + columnDistance;
+  }
+
+  private boolean isBlocked(int cell) {
+    return (this.obstacles[cell >>> 6] & (1L << cell)) != 0;
+  }
+
+  private int cell(Square square) {
+    return square.getRow() * this.columns + square.getColumn();
+  }
+
+  private Square square(int cell) {
+    return new Square(cell / this.columns, cell % this.columns);
+  }
+}
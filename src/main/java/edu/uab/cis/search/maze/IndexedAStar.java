@@ -0,0 +1,384 @@
+package edu.uab.cis.search.maze;
+
+import java.util.Arrays;
+
+/**
+ * A* search over cell indices ({@code row * columns + column}) rather than
+ * {@link Square} objects.
+ * 
+ * The g-scores, parent pointers and closed flags are kept in flat arrays keyed
+ * by cell index, and the open list is an {@link OpenList} of primitive keys,
+ * so a search allocates nothing per expansion. Squares are explored in exactly the
+ * order documented on {@link Solver}.
+ * 
+ * A cell that is reached again while it is still open is never queued twice:
+ * its entry is moved up if the new path is cheaper, and left alone otherwise.
+ * 
+ * The arrays are only valid for cells stamped with the current search
+ * generation, so an instance can be reused for many searches without clearing
+ * them in between. Instances are not thread-safe.
+ */
+final class IndexedAStar {
+
+  // directions, in the order neighbors are generated
+  static final int UP = 0;
+  static final int DOWN = 1;
+  static final int LEFT = 2;
+  static final int RIGHT = 3;
+
+  // flags: bits 0-1 hold the direction moved to reach the cell from its parent
+  private static final byte HAS_PARENT = 1 << 2;
+  private static final byte CLOSED = 1 << 3;
+
+  private int[] g = new int[0];
+  private int[] stamp = new int[0];
+  private byte[] flags = new byte[0];
+  private int generation;
+
+  private final OpenList open;
+
+  private int[] closed = new int[64];
+  private int closedCount;
+
+  private int columns;
+  private int goal;
+  private boolean found;
+  private long duplicatesAvoided;
+  private int pushedCount;
+  private int maxOpenSize;
+  private int heuristicEvaluations;
+  private int goalRow;
+  private int goalColumn;
+  private Landmarks landmarks;
+  private int[] goalDistances;
+  private Heuristic heuristic;
+  private EdgeCost costs;
+  private int minimumCost;
+  private double weight;
+  private int nearest;
+  private int nearestH;
+
+  /**
+   * Creates a search that uses a binary heap as its open list.
+   */
+  IndexedAStar() {
+    this(new CellHeap());
+  }
+
+  /**
+   * Creates a search that uses the given open list.
+   */
+  IndexedAStar(OpenList open) {
+    this.open = open;
+  }
+
+  /**
+   * Searches the given maze from its start square to its goal square.
+   * 
+   * @param maze
+   *          The maze to be searched.
+   * @return True if the goal was reached.
+   */
+  boolean search(Maze maze) {
+    return this.search(maze, null, null, null, 1);
+  }
+
+  /**
+   * Searches the given maze from its start square to its goal square with the
+   * given heuristic and step costs. Without a heuristic the Manhattan distance
+   * is used, scaled by the lowest step cost, and without step costs every step
+   * costs 1; those defaults are inlined rather than called through the
+   * interfaces.
+   * 
+   * @param maze
+   *          The maze to be searched.
+   * @param landmarks
+   *          Landmarks computed for the maze's grid, whose bound raises the
+   *          heuristic where it is larger, or null.
+   * @param heuristic
+   *          The heuristic, or null for the Manhattan distance.
+   * @param costs
+   *          The step costs, or null if every step costs 1.
+   * @param weight
+   *          The weight of the heuristic in the f score, 1 for optimal paths.
+   *          Only f is weighted; cells with equal f are still ordered by their
+   *          unweighted h.
+   * @return True if the goal was reached.
+   */
+  boolean search(Maze maze, Landmarks landmarks, Heuristic heuristic, EdgeCost costs, double weight) {
+    return this.search(maze, landmarks, heuristic, costs, weight, null);
+  }
+
+  /**
+   * Searches as {@link #search(Maze, Landmarks, Heuristic, EdgeCost, double)}
+   * does, but stops early if the given limits say so.
+   * 
+   * @param limits
+   *          The limits on the search, or null if there are none.
+   * @return True if the goal was reached.
+   */
+  boolean search(
+      Maze maze,
+      Landmarks landmarks,
+      Heuristic heuristic,
+      EdgeCost costs,
+      double weight,
+      SearchLimits limits) {
+    Grid grid = maze.getGrid();
+    byte[][] neighbors = grid.searchMasks();
+    int rows = maze.getRows();
+    int columns = maze.getColumns();
+    this.prepare(rows * columns);
+    this.columns = columns;
+    Square startSquare = maze.getStart();
+    Square goalSquare = maze.getGoal();
+    this.goalRow = goalSquare.getRow();
+    this.goalColumn = goalSquare.getColumn();
+    int start = startSquare.getRow() * columns + startSquare.getColumn();
+    this.goal = this.goalRow * columns + this.goalColumn;
+    this.found = false;
+    this.duplicatesAvoided = 0;
+    this.pushedCount = 1;
+    this.maxOpenSize = 1;
+    this.heuristicEvaluations = 0;
+    this.landmarks = landmarks;
+    this.goalDistances = landmarks != null ? landmarks.distancesTo(this.goal) : null;
+    this.heuristic = heuristic;
+    this.costs = costs;
+    this.minimumCost = costs != null ? costs.minimumCost() : 1;
+    this.weight = weight;
+
+    int h = this.estimate(start, startSquare.getRow(), startSquare.getColumn());
+    this.stamp[start] = this.generation;
+    this.g[start] = 0;
+    this.flags[start] = 0;
+    this.open.push(start, this.weigh(h), h);
+    this.nearest = start;
+    this.nearestH = h;
+
+    while (!this.open.isEmpty()) {
+      if (limits != null && limits.stop()) {
+        break;
+      }
+      int cell = this.open.pop();
+      this.flags[cell] |= CLOSED;
+      this.addClosed(cell);
+      if (cell == this.goal) {
+        this.found = true;
+        break;
+      }
+      int row = cell / columns;
+      int column = cell - row * columns;
+      int open = neighbors != null ? Grid.mask(neighbors, cell) : grid.neighborMask(row, column);
+      if ((open & Grid.UP) != 0) {
+        this.relax(cell - columns, cell, row - 1, column, UP);
+      }
+      if ((open & Grid.DOWN) != 0) {
+        this.relax(cell + columns, cell, row + 1, column, DOWN);
+      }
+      if ((open & Grid.LEFT) != 0) {
+        this.relax(cell - 1, cell, row, column - 1, LEFT);
+      }
+      if ((open & Grid.RIGHT) != 0) {
+        this.relax(cell + 1, cell, row, column + 1, RIGHT);
+      }
+    }
+    this.open.clear();
+    this.landmarks = null;
+    this.goalDistances = null;
+    this.heuristic = null;
+    this.costs = null;
+    return this.found;
+  }
+
+  private void relax(int cell, int from, int row, int column, int direction) {
+    if (this.stamp[cell] == this.generation) {
+      if ((this.flags[cell] & CLOSED) != 0) {
+        return;
+      }
+      // already open: keep the first parent found unless this path is cheaper
+      int gNext = this.g[from] + this.cost(from, cell);
+      if (this.g[cell] <= gNext) {
+        ++this.duplicatesAvoided;
+      } else {
+        int h = this.estimate(cell, row, column);
+        this.g[cell] = gNext;
+        this.flags[cell] = (byte) (HAS_PARENT | direction);
+        this.open.decreaseKey(cell, gNext + this.weigh(h), h);
+      }
+      return;
+    }
+    int gNext = this.g[from] + this.cost(from, cell);
+    int h = this.estimate(cell, row, column);
+    this.stamp[cell] = this.generation;
+    this.g[cell] = gNext;
+    this.flags[cell] = (byte) (HAS_PARENT | direction);
+    this.open.push(cell, gNext + this.weigh(h), h);
+    if (h < this.nearestH) {
+      this.nearest = cell;
+      this.nearestH = h;
+    }
+    ++this.pushedCount;
+    if (this.open.size() > this.maxOpenSize) {
+      this.maxOpenSize = this.open.size();
+    }
+  }
+
+  /**
+   * @return The heuristic weighted for the f score, rounded down so that the
+   *         weight still bounds how far from optimal the path may be.
+   */
+  private int weigh(int h) {
+    return this.weight == 1 ? h : (int) (h * this.weight);
+  }
+
+  private int cost(int from, int to) {
+    EdgeCost costs = this.costs;
+    return costs == null ? 1 : costs.cost(from, to);
+  }
+
+  /**
+   * @return The heuristic for the given cell, raised to the landmarks' bound
+   *         if there are landmarks and it is larger. The landmarks count steps,
+   *         so their bound is scaled by the lowest step cost.
+   */
+  private int estimate(int cell, int row, int column) {
+    ++this.heuristicEvaluations;
+    int h;
+    Heuristic heuristic = this.heuristic;
+    if (heuristic == null) {
+      h = (Math.abs(row - this.goalRow) + Math.abs(column - this.goalColumn)) * this.minimumCost;
+    } else {
+      h = heuristic.estimate(row, column, this.goalRow, this.goalColumn);
+    }
+    if (this.landmarks != null) {
+      h = Math.max(h, this.landmarks.lowerBound(cell, this.goalDistances) * this.minimumCost);
+    }
+    return h;
+  }
+
+  /**
+   * @return The cells along the path from the start to the goal, including
+   *         both, or an empty array if the last search did not reach the goal.
+   */
+  int[] path() {
+    if (!this.found) {
+      return new int[0];
+    }
+    return this.pathTo(this.goal);
+  }
+
+  /**
+   * @return The cells along the path from the start to the reached cell with
+   *         the lowest heuristic, the first reached if several tie, including
+   *         both; the goal's path if the last search reached it.
+   */
+  int[] nearestPath() {
+    return this.pathTo(this.found ? this.goal : this.nearest);
+  }
+
+  private int[] pathTo(int last) {
+    // with step costs, g is not the number of steps, so count them
+    int length = 1;
+    for (int cell = last; (this.flags[cell] & HAS_PARENT) != 0; cell = this.parent(cell)) {
+      ++length;
+    }
+    int[] path = new int[length];
+    int cell = last;
+    for (int i = path.length - 1; i >= 0; --i) {
+      path[i] = cell;
+      cell = this.parent(cell);
+    }
+    return path;
+  }
+
+  /**
+   * @return The number of times the last search reached a cell that was
+   *         already open with a path at least as cheap, and so skipped it
+   *         instead of queuing it again.
+   */
+  long duplicatesAvoided() {
+    return this.duplicatesAvoided;
+  }
+
+  /**
+   * @return The number of cells queued on the open list by the last search.
+   *         Cells whose queued entry was updated in place are counted once.
+   */
+  int pushedCount() {
+    return this.pushedCount;
+  }
+
+  /**
+   * @return The largest number of cells that were on the open list at once
+   *         during the last search.
+   */
+  int maxOpenSize() {
+    return this.maxOpenSize;
+  }
+
+  /**
+   * @return The number of times the last search computed a heuristic.
+   */
+  int heuristicEvaluations() {
+    return this.heuristicEvaluations;
+  }
+
+  /**
+   * @return The number of cells expanded by the last search.
+   */
+  int closedCount() {
+    return this.closedCount;
+  }
+
+  /**
+   * @return The cells expanded by the last search, in expansion order. Only the
+   *         first {@link #closedCount()} entries are valid.
+   */
+  int[] closedCells() {
+    return this.closed;
+  }
+
+  private int parent(int cell) {
+    byte flag = this.flags[cell];
+    if ((flag & HAS_PARENT) == 0) {
+      return -1;
+    }
+    switch (flag & 3) {
+    case UP:
+      return cell + this.columns;
+    case DOWN:
+      return cell - this.columns;
+    case LEFT:
+      return cell + 1;
+    default:
+      return cell - 1;
+    }
+  }
+
+  private void addClosed(int cell) {
+    if (this.closedCount == this.closed.length) {
+      this.closed = Arrays.copyOf(this.closed, this.closedCount * 2);
+    }
+    this.closed[this.closedCount++] = cell;
+  }
+
+  /**
+   * Makes sure the per-cell arrays can hold the given number of cells and
+   * starts a new search generation.
+   */
+  private void prepare(int cells) {
+    if (this.g.length < cells) {
+      this.g = new int[cells];
+      this.stamp = new int[cells];
+      this.flags = new byte[cells];
+      this.generation = 0;
+      this.open.ensureCells(cells);
+    }
+    if (++this.generation == Integer.MAX_VALUE) {
+      Arrays.fill(this.stamp, 0);
+      this.generation = 1;
+    }
+    this.closedCount = 0;
+  }
+}
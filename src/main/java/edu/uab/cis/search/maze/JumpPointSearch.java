@@ -0,0 +1,411 @@
+package edu.uab.cis.search.maze;
+
+import java.util.Arrays;
+
+/**
+ * Jump Point Search for 4-connected grids where every step costs 1.
+ * 
+ * Runs A* over jump points only: from each expanded cell, the search scans in
+ * straight lines and only queues the cells where an optimal path might have to
+ * turn, i.e. the goal, cells with a forced neighbor, and cells on a vertical
+ * scan from which a horizontal scan finds such a cell. The long runs of
+ * symmetric squares between jump points are never queued, which on open grids
+ * cuts the number of heap operations by orders of magnitude.
+ * 
+ * The path found has the same length as the one found by {@link IndexedAStar},
+ * though it may take a different route of that length. Consecutive jump points
+ * always lie on a straight line, so {@link #path()} fills in the squares
+ * between them.
+ * 
+ * A vertical scan probes a horizontal scan on each side at every step, so
+ * horizontal scans read the grid 64 squares at a time, and the result of a
+ * scan from the start of each 64-column chunk of a row is remembered for the
+ * rest of the search. Each chunk is then scanned at most once per direction
+ * per search, and a vertical step costs O(1) amortized instead of two scans
+ * of its row.
+ * 
+ * Instances are not thread-safe, but can be reused for many searches.
+ */
+final class JumpPointSearch {
+
+  private static final byte CLOSED = 1;
+
+  private int[] g = new int[0];
+  private int[] parent = new int[0];
+  private int[] stamp = new int[0];
+  private byte[] flags = new byte[0];
+  private int generation;
+  // per 64-column chunk of each row, the jump point found by scanning right
+  // from its first column or left from its last, or -1 if an obstacle comes
+  // first; only valid where the chunk's stamp is current
+  private int[] rightJump = new int[0];
+  private int[] rightStamp = new int[0];
+  private int[] leftJump = new int[0];
+  private int[] leftStamp = new int[0];
+  private int chunks;
+
+  private final CellHeap open = new CellHeap();
+
+  private int[] closed = new int[64];
+  private int closedCount;
+
+  private Grid grid;
+  private int columns;
+  private int goalRow;
+  private int goalColumn;
+  private int start;
+  private int goal;
+  private boolean found;
+  private int pushedCount;
+  private int maxOpenSize;
+  private int heuristicEvaluations;
+  private int nearest;
+  private int nearestH;
+
+  /**
+   * Searches the given maze from its start square to its goal square.
+   * 
+   * @param maze
+   *          The maze to be searched.
+   * @return True if the goal was reached.
+   */
+  boolean search(Maze maze) {
+    return this.search(maze, null);
+  }
+
+  /**
+   * Searches as {@link #search(Maze)} does, but stops early if the given limits
+   * say so.
+   * 
+   * @param limits
+   *          The limits on the search, or null if there are none.
+   * @return True if the goal was reached.
+   */
+  boolean search(Maze maze, SearchLimits limits) {
+    int columns = maze.getColumns();
+    this.chunks = (columns + 63) >>> 6;
+    this.prepare(maze.getRows() * columns, maze.getRows() * this.chunks);
+    this.grid = maze.getGrid();
+    this.columns = columns;
+    Square startSquare = maze.getStart();
+    this.goalRow = maze.getGoal().getRow();
+    this.goalColumn = maze.getGoal().getColumn();
+    this.start = startSquare.getRow() * columns + startSquare.getColumn();
+    this.goal = this.goalRow * columns + this.goalColumn;
+    this.found = false;
+    this.pushedCount = 1;
+    this.maxOpenSize = 1;
+    this.heuristicEvaluations = 1;
+
+    this.stamp[this.start] = this.generation;
+    this.g[this.start] = 0;
+    this.parent[this.start] = -1;
+    this.flags[this.start] = 0;
+    int h = this.heuristic(startSquare.getRow(), startSquare.getColumn());
+    this.open.push(this.start, h, h);
+    this.nearest = this.start;
+    this.nearestH = h;
+
+    while (!this.open.isEmpty()) {
+      if (limits != null && limits.stop()) {
+        break;
+      }
+      int cell = this.open.pop();
+      this.flags[cell] |= CLOSED;
+      this.addClosed(cell);
+      if (cell == this.goal) {
+        this.found = true;
+        break;
+      }
+      int row = cell / columns;
+      int column = cell - row * columns;
+      int from = this.parent[cell];
+      if (from < 0) {
+        this.jumpFrom(cell, row, column, -1, 0);
+        this.jumpFrom(cell, row, column, 1, 0);
+        this.jumpFrom(cell, row, column, 0, -1);
+        this.jumpFrom(cell, row, column, 0, 1);
+      } else {
+        int fromRow = from / columns;
+        int dRow = Integer.signum(row - fromRow);
+        int dColumn = Integer.signum(column - (from - fromRow * columns));
+        // keep going straight, or turn to either side
+        this.jumpFrom(cell, row, column, dRow, dColumn);
+        this.jumpFrom(cell, row, column, dColumn, dRow);
+        this.jumpFrom(cell, row, column, -dColumn, -dRow);
+      }
+    }
+    this.open.clear();
+    this.grid = null;
+    return this.found;
+  }
+
+  /**
+   * Scans from the given cell in the given direction and queues the jump point
+   * found, if any.
+   */
+  private void jumpFrom(int cell, int row, int column, int dRow, int dColumn) {
+    int next = this.jump(row + dRow, column + dColumn, dRow, dColumn);
+    if (next < 0) {
+      return;
+    }
+    int nextRow = next / this.columns;
+    int nextColumn = next - nextRow * this.columns;
+    int gNext = this.g[cell] + Math.abs(nextRow - row) + Math.abs(nextColumn - column);
+    int h = this.heuristic(nextRow, nextColumn);
+    ++this.heuristicEvaluations;
+    if (this.stamp[next] == this.generation) {
+      if ((this.flags[next] & CLOSED) != 0 || this.g[next] <= gNext) {
+        return;
+      }
+      this.g[next] = gNext;
+      this.parent[next] = cell;
+      this.open.decreaseKey(next, gNext + h, h);
+      return;
+    }
+    this.stamp[next] = this.generation;
+    this.g[next] = gNext;
+    this.parent[next] = cell;
+    this.flags[next] = 0;
+    this.open.push(next, gNext + h, h);
+    if (h < this.nearestH) {
+      this.nearest = next;
+      this.nearestH = h;
+    }
+    ++this.pushedCount;
+    if (this.open.size() > this.maxOpenSize) {
+      this.maxOpenSize = this.open.size();
+    }
+  }
+
+  /**
+   * Scans in a straight line, starting at the given square.
+   * 
+   * @return The first jump point on the line, or -1 if the scan runs into an
+   *         obstacle first.
+   */
+  private int jump(int row, int column, int dRow, int dColumn) {
+    if (dColumn != 0) {
+      return this.jumpHorizontally(row, column, dColumn);
+    }
+    Grid grid = this.grid;
+    while (!grid.isBlocked(row, column)) {
+      if (row == this.goalRow && column == this.goalColumn) {
+        return row * this.columns + column;
+      }
+      if ((!grid.isBlocked(row, column - 1) && grid.isBlocked(row - dRow, column - 1))
+          || (!grid.isBlocked(row, column + 1) && grid.isBlocked(row - dRow, column + 1))) {
+        return row * this.columns + column;
+      }
+      // vertical moves may turn anywhere a horizontal scan finds something
+      if (this.jumpHorizontally(row, column + 1, 1) >= 0 || this.jumpHorizontally(row, column - 1, -1) >= 0) {
+        return row * this.columns + column;
+      }
+      row += dRow;
+    }
+    return -1;
+  }
+
+  /**
+   * Scans along a row, starting at the given square: through the rest of its
+   * chunk, then chunk by chunk, stopping early at a chunk already scanned.
+   * 
+   * @return The first jump point on the line, or -1 if the scan runs into an
+   *         obstacle first.
+   */
+  private int jumpHorizontally(int row, int column, int dColumn) {
+    if (column < 0 || column >= this.columns) {
+      return -1;
+    }
+    int chunk = column >>> 6;
+    int base = chunk << 6;
+    long events = this.events(row, base, dColumn);
+    // only the squares from the given column onwards
+    if (dColumn > 0) {
+      events &= -1L << (column - base);
+    } else {
+      events &= -1L >>> (63 - (column - base));
+    }
+    if (events != 0) {
+      return this.jumpPoint(row, base, events, dColumn);
+    }
+    return this.jumpFromChunk(row, chunk + dColumn, dColumn);
+  }
+
+  /**
+   * @return The jump point found by scanning from the first square of the
+   *         given chunk in the scan's direction, remembering it for every
+   *         chunk passed over.
+   */
+  private int jumpFromChunk(int row, int chunk, int dColumn) {
+    int[] jumps = dColumn > 0 ? this.rightJump : this.leftJump;
+    int[] stamps = dColumn > 0 ? this.rightStamp : this.leftStamp;
+    int generation = this.generation;
+    int first = chunk;
+    int found = -1;
+    for (; chunk >= 0 && chunk < this.chunks; chunk += dColumn) {
+      int index = row * this.chunks + chunk;
+      if (stamps[index] == generation) {
+        found = jumps[index];
+        break;
+      }
+      long events = this.events(row, chunk << 6, dColumn);
+      if (events != 0) {
+        found = this.jumpPoint(row, chunk << 6, events, dColumn);
+        break;
+      }
+    }
+    // every chunk passed over leads to the same jump point
+    int last = chunk >= 0 && chunk < this.chunks ? chunk + dColumn : chunk;
+    for (int passed = first; passed != last; passed += dColumn) {
+      int index = row * this.chunks + passed;
+      stamps[index] = generation;
+      jumps[index] = found;
+    }
+    return found;
+  }
+
+  /**
+   * @return A bit for each of the 64 squares of the row from the given column
+   *         rightwards, set where a scan in the given direction must stop: an
+   *         obstacle, the goal, or a square where an obstacle just ended above
+   *         or below, so that the path may need to turn.
+   */
+  private long events(int row, int base, int dColumn) {
+    Grid grid = this.grid;
+    int behind = base - dColumn;
+    long events = grid.blockedRun(row, base)
+        | (~grid.blockedRun(row - 1, base) & grid.blockedRun(row - 1, behind))
+        | (~grid.blockedRun(row + 1, base) & grid.blockedRun(row + 1, behind));
+    int goal = this.goalColumn - base;
+    if (row == this.goalRow && goal >= 0 && goal < 64) {
+      events |= 1L << goal;
+    }
+    return events;
+  }
+
+  /**
+   * @return The cell of the first event met in the scan's direction, or -1 if
+   *         it is an obstacle, including the edge of the grid.
+   */
+  private int jumpPoint(int row, int base, long events, int dColumn) {
+    int column = base + (dColumn > 0 ? Long.numberOfTrailingZeros(events) : 63 - Long.numberOfLeadingZeros(events));
+    return this.grid.isBlocked(row, column) ? -1 : row * this.columns + column;
+  }
+
+  private int heuristic(int row, int column) {
+    return Math.abs(row - this.goalRow) + Math.abs(column - this.goalColumn);
+  }
+
+  /**
+   * @return The cells along the path from the start to the goal, including
+   *         both and every square between consecutive jump points, or an empty
+   *         array if the last search did not reach the goal.
+   */
+  int[] path() {
+    if (!this.found) {
+      return new int[0];
+    }
+    return this.pathTo(this.goal);
+  }
+
+  /**
+   * @return The cells along the path from the start to the queued jump point
+   *         with the lowest heuristic, the first queued if several tie,
+   *         including both; the goal's path if the last search reached it.
+   */
+  int[] nearestPath() {
+    return this.pathTo(this.found ? this.goal : this.nearest);
+  }
+
+  private int[] pathTo(int last) {
+    int[] path = new int[this.g[last] + 1];
+    int index = path.length - 1;
+    int cell = last;
+    path[index] = cell;
+    while (cell != this.start) {
+      int from = this.parent[cell];
+      int step = Integer.signum(from - cell);
+      if (from / this.columns != cell / this.columns) {
+        step *= this.columns;
+      }
+      while (cell != from) {
+        cell += step;
+        path[--index] = cell;
+      }
+    }
+    return path;
+  }
+
+  /**
+   * @return The number of jump points queued on the open list by the last
+   *         search. Jump points whose queued entry was updated in place are
+   *         counted once.
+   */
+  int pushedCount() {
+    return this.pushedCount;
+  }
+
+  /**
+   * @return The largest number of jump points that were on the open list at
+   *         once during the last search.
+   */
+  int maxOpenSize() {
+    return this.maxOpenSize;
+  }
+
+  /**
+   * @return The number of times the last search computed a heuristic.
+   */
+  int heuristicEvaluations() {
+    return this.heuristicEvaluations;
+  }
+
+  /**
+   * @return The number of jump points expanded by the last search.
+   */
+  int closedCount() {
+    return this.closedCount;
+  }
+
+  /**
+   * @return The jump points expanded by the last search, in expansion order.
+   *         Only the first {@link #closedCount()} entries are valid.
+   */
+  int[] closedCells() {
+    return this.closed;
+  }
+
+  private void addClosed(int cell) {
+    if (this.closedCount == this.closed.length) {
+      this.closed = Arrays.copyOf(this.closed, this.closedCount * 2);
+    }
+    this.closed[this.closedCount++] = cell;
+  }
+
+  private void prepare(int cells, int rowChunks) {
+    if (this.rightJump.length < rowChunks) {
+      this.rightJump = new int[rowChunks];
+      this.rightStamp = new int[rowChunks];
+      this.leftJump = new int[rowChunks];
+      this.leftStamp = new int[rowChunks];
+      this.generation = 0;
+      Arrays.fill(this.stamp, 0);
+    }
+    if (this.g.length < cells) {
+      this.g = new int[cells];
+      this.parent = new int[cells];
+      this.stamp = new int[cells];
+      this.flags = new byte[cells];
+      this.generation = 0;
+      this.open.ensureCells(cells);
+    }
+    if (++this.generation == Integer.MAX_VALUE) {
+      Arrays.fill(this.stamp, 0);
+      Arrays.fill(this.rightStamp, 0);
+      Arrays.fill(this.leftStamp, 0);
+      this.generation = 1;
+    }
+    this.closedCount = 0;
+  }
+}
@@ -0,0 +1,474 @@
+package edu.uab.cis.search.maze;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Landmarks for the ALT (A*, landmarks, triangle inequality) heuristic: a few
+ * open squares of a grid, each with a table of the true path length from it to
+ * every square of the grid.
+ *
+ * For a landmark L, the triangle inequality gives
+ * {@code d(n, goal) >= |d(L, goal) - d(L, n)|}, so the largest such bound over
+ * all landmarks, or the Manhattan distance if that is larger, is still an
+ * admissible and consistent heuristic. In mazes with long corridors it is
+ * usually far closer to the true distance than the Manhattan distance alone,
+ * so A* explores far fewer squares.
+ *
+ * The tables are computed once per grid, with one breadth-first search per
+ * landmark, and the searches run in parallel, each writing straight into its
+ * table with a queue that is reused by the next search on the same worker.
+ * When every distance is below 65,535, as it always is for grids of up to
+ * that many squares, each table holds a {@code short} per square, and
+ * otherwise an {@code int}. Landmarks only apply to the exact grid they were computed for:
+ * after {@link Grid#withBlocked} they must be computed again.
+ *
+ * Instances are immutable, and can be shared by any number of searches.
+ */
+public final class Landmarks {
+
+  private static final int UNREACHABLE = -1;
+
+  // a short table stores distances unsigned, with all bits set if unreachable
+  private static final int SHORT_UNREACHABLE = 0xFFFF;
+
+  private final Grid grid;
+  private final int[] cells;
+  // exactly one of these holds the tables, one per landmark
+  private final short[][] shortTables;
+  private final int[][] intTables;
+
+  private Landmarks(Grid grid, int[] cells, short[][] shortTables, int[][] intTables) {
+    this.grid = grid;
+    this.cells = cells;
+    this.shortTables = shortTables;
+    this.intTables = intTables;
+  }
+
+  /**
+   * Chooses landmarks for the given grid and computes their tables, one
+   * thread per landmark, up to the number of available processors.
+   *
+   * @param grid
+   *          The grid to compute landmarks for.
+   * @param count
+   *          The number of landmarks to choose.
+   * @return The landmarks.
+   * @throws InterruptedException
+   *           If the thread is interrupted while waiting for the tables.
+   */
+  public static Landmarks compute(Grid grid, int count) throws InterruptedException {
+    int threads = Math.max(1, Math.min(count, Runtime.getRuntime().availableProcessors()));
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "landmarks");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    try {
+      return compute(grid, count, executor);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Chooses landmarks for the given grid and computes their tables on the
+   * given executor.
+   *
+   * The landmarks are spread evenly around the edge of the grid, each at the
+   * open square of the largest connected region that is closest to its place
+   * on the edge, since landmarks behind the start or the goal give the
+   * tightest bounds. Fewer landmarks than requested are returned if the
+   * region has fewer squares.
+   *
+   * @param grid
+   *          The grid to compute landmarks for.
+   * @param count
+   *          The number of landmarks to choose.
+   * @param executor
+   *          The executor that runs the breadth-first searches, one task per
+   *          landmark.
+   * @return The landmarks.
+   * @throws InterruptedException
+   *           If the thread is interrupted while waiting for the tables.
+   */
+  public static Landmarks compute(Grid grid, int count, Executor executor) throws InterruptedException {
+    return of(grid, select(grid, count), executor);
+  }
+
+  /**
+   * Computes the tables for the given landmarks on the given executor.
+   *
+   * @param grid
+   *          The grid to compute landmarks for.
+   * @param landmarks
+   *          The landmark squares. They must be open squares of the grid.
+   * @param executor
+   *          The executor that runs the breadth-first searches, one task per
+   *          landmark.
+   * @return The landmarks.
+   * @throws InterruptedException
+   *           If the thread is interrupted while waiting for the tables.
+   */
+  public static Landmarks of(Grid grid, List<Square> landmarks, Executor executor)
+      throws InterruptedException {
+    int[] cells = new int[landmarks.size()];
+    for (int i = 0; i < cells.length; ++i) {
+      Square landmark = landmarks.get(i);
+      if (grid.isBlocked(landmark)) {
+        throw new IllegalArgumentException("Landmark is blocked or outside the grid: " + landmark);
+      }
+      cells[i] = landmark.getRow() * grid.getColumns() + landmark.getColumn();
+    }
+    // idle breadth-first queues, so that each worker allocates at most one
+    ConcurrentLinkedQueue<int[]> queues = new ConcurrentLinkedQueue<>();
+    List<FutureTask<Object>> tasks = new ArrayList<>(cells.length);
+    for (int cell : cells) {
+      tasks.add(submit(grid, cell, false, queues, executor));
+    }
+    short[][] shortTables = new short[cells.length][];
+    boolean compact = true;
+    for (int i = 0; i < cells.length; ++i) {
+      shortTables[i] = (short[]) get(tasks.get(i));
+      compact &= shortTables[i] != null;
+    }
+    if (compact) {
+      return new Landmarks(grid, cells, shortTables, null);
+    }
+    // some distance does not fit in a short, so every table is widened and the
+    // ones that did not fit are computed again
+    tasks.clear();
+    for (int i = 0; i < cells.length; ++i) {
+      tasks.add(shortTables[i] == null ? submit(grid, cells[i], true, queues, executor) : null);
+    }
+    int[][] intTables = new int[cells.length][];
+    for (int i = 0; i < cells.length; ++i) {
+      intTables[i] = shortTables[i] == null ? (int[]) get(tasks.get(i)) : toInts(shortTables[i]);
+    }
+    return new Landmarks(grid, cells, null, intTables);
+  }
+
+  /**
+   * Starts the breadth-first search from one landmark on the executor.
+   *
+   * @param wide
+   *          True for an {@code int} table, false for a {@code short} table,
+   *          which the task returns as null if some distance does not fit.
+   */
+  private static FutureTask<Object> submit(final Grid grid, final int cell, final boolean wide,
+      final ConcurrentLinkedQueue<int[]> queues, Executor executor) {
+    FutureTask<Object> task = new FutureTask<>(new Callable<Object>() {
+      @Override
+      public Object call() {
+        int[] queue = queues.poll();
+        if (queue == null) {
+          queue = new int[grid.getRows() * grid.getColumns()];
+        }
+        try {
+          return wide ? intDistances(grid, cell, queue) : shortDistances(grid, cell, queue);
+        } finally {
+          queues.offer(queue);
+        }
+      }
+    });
+    executor.execute(task);
+    return task;
+  }
+
+  private static Object get(FutureTask<Object> task) throws InterruptedException {
+    try {
+      return task.get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Failed to compute a landmark table", e.getCause());
+    }
+  }
+
+  /**
+   * @return The grid the landmarks were computed for.
+   */
+  public Grid getGrid() {
+    return this.grid;
+  }
+
+  /**
+   * @return The landmark squares.
+   */
+  public List<Square> getLandmarks() {
+    int columns = this.grid.getColumns();
+    List<Square> landmarks = new ArrayList<>(this.cells.length);
+    for (int cell : this.cells) {
+      landmarks.add(new Square(cell / columns, cell % columns));
+    }
+    return Collections.unmodifiableList(landmarks);
+  }
+
+  /**
+   * @param landmark
+   *          The position of the landmark in {@link #getLandmarks()}.
+   * @param square
+   *          A square of the grid.
+   * @return The length of the shortest path from the landmark to the square,
+   *         or -1 if there is none.
+   */
+  public int getDistance(int landmark, Square square) {
+    if (this.grid.isBlocked(square)) {
+      return UNREACHABLE;
+    }
+    return this.distance(landmark, square.getRow() * this.grid.getColumns() + square.getColumn());
+  }
+
+  /**
+   * @return A lower bound on the length of the shortest path between two
+   *         squares of the grid: the larger of their Manhattan distance and
+   *         the landmarks' triangle inequality bounds.
+   */
+  public int lowerBound(Square from, Square to) {
+    int bound = Math.abs(from.getRow() - to.getRow()) + Math.abs(from.getColumn() - to.getColumn());
+    if (this.grid.isBlocked(from) || this.grid.isBlocked(to)) {
+      return bound;
+    }
+    int columns = this.grid.getColumns();
+    int[] toDistances = this.distancesTo(to.getRow() * columns + to.getColumn());
+    return Math.max(bound, this.lowerBound(from.getRow() * columns + from.getColumn(), toDistances));
+  }
+
+  /**
+   * @return The distance from every landmark to the given open cell, -1 for
+   *         landmarks that cannot reach it, to be passed to
+   *         {@link #lowerBound(int, int[])}.
+   */
+  int[] distancesTo(int cell) {
+    int[] distances = new int[this.cells.length];
+    for (int i = 0; i < distances.length; ++i) {
+      distances[i] = this.distance(i, cell);
+    }
+    return distances;
+  }
+
+  /**
+   * @param cell
+   *          An open cell.
+   * @param goalDistances
+   *          The distances from every landmark to the goal, as returned by
+   *          {@link #distancesTo(int)}.
+   * @return The largest triangle inequality bound on the distance from the
+   *         cell to the goal, or 0 if no landmark reaches both.
+   */
+  int lowerBound(int cell, int[] goalDistances) {
+    int bound = 0;
+    if (this.shortTables != null) {
+      for (int i = 0; i < goalDistances.length; ++i) {
+        int goal = goalDistances[i];
+        int distance = this.shortTables[i][cell] & SHORT_UNREACHABLE;
+        if (goal >= 0 && distance != SHORT_UNREACHABLE) {
+          bound = Math.max(bound, Math.abs(distance - goal));
+        }
+      }
+    } else {
+      for (int i = 0; i < goalDistances.length; ++i) {
+        int goal = goalDistances[i];
+        int distance = this.intTables[i][cell];
+        if (goal >= 0 && distance >= 0) {
+          bound = Math.max(bound, Math.abs(distance - goal));
+        }
+      }
+    }
+    return bound;
+  }
+
+  private int distance(int landmark, int cell) {
+    if (this.shortTables != null) {
+      int distance = this.shortTables[landmark][cell] & SHORT_UNREACHABLE;
+      return distance == SHORT_UNREACHABLE ? UNREACHABLE : distance;
+    }
+    return this.intTables[landmark][cell];
+  }
+
+  /**
+   * Chooses up to {@code count} distinct open squares of the largest connected
+   * region, each the closest to one of {@code count} places spread evenly
+   * around the edge of the grid.
+   */
+  static List<Square> select(Grid grid, int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Landmark count must not be negative: " + count);
+    }
+    int rows = grid.getRows();
+    int columns = grid.getColumns();
+    int cellCount = rows * columns;
+    if (count == 0 || cellCount == 0) {
+      return Collections.emptyList();
+    }
+    // find the largest region
+    Components components = grid.components();
+    int[] sizes = new int[16];
+    int largest = 0;
+    for (int cell = 0; cell < cellCount; ++cell) {
+      int label = components.label(cell);
+      if (label == 0) {
+        continue;
+      }
+      if (label >= sizes.length) {
+        sizes = Arrays.copyOf(sizes, Math.max(label + 1, sizes.length * 2));
+      }
+      if (++sizes[label] > sizes[largest]) {
+        largest = label;
+      }
+    }
+    if (largest == 0) {
+      return Collections.emptyList();
+    }
+    // the places on the edge, walked clockwise from the top left corner
+    int perimeter = 2 * (rows - 1) + 2 * (columns - 1);
+    int[] anchorRows = new int[count];
+    int[] anchorColumns = new int[count];
+    for (int i = 0; i < count; ++i) {
+      int step = (int) ((long) i * perimeter / count);
+      if (step < columns - 1) {
+        anchorRows[i] = 0;
+        anchorColumns[i] = step;
+      } else if ((step -= columns - 1) < rows - 1) {
+        anchorRows[i] = step;
+        anchorColumns[i] = columns - 1;
+      } else if ((step -= rows - 1) < columns - 1) {
+        anchorRows[i] = rows - 1;
+        anchorColumns[i] = columns - 1 - step;
+      } else {
+        step -= columns - 1;
+        anchorRows[i] = rows - 1 - step;
+        anchorColumns[i] = 0;
+      }
+    }
+    // one pass over the region finds the closest square to every place
+    int[] best = new int[count];
+    int[] bestDistances = new int[count];
+    Arrays.fill(bestDistances, Integer.MAX_VALUE);
+    int cell = 0;
+    for (int row = 0; row < rows; ++row) {
+      for (int column = 0; column < columns; ++column, ++cell) {
+        if (components.label(cell) != largest) {
+          continue;
+        }
+        for (int i = 0; i < count; ++i) {
+          int distance = Math.abs(row - anchorRows[i]) + Math.abs(column - anchorColumns[i]);
+          if (distance < bestDistances[i]) {
+            bestDistances[i] = distance;
+            best[i] = cell;
+          }
+        }
+      }
+    }
+    List<Square> landmarks = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      Square landmark = new Square(best[i] / columns, best[i] % columns);
+      if (!landmarks.contains(landmark)) {
+        landmarks.add(landmark);
+      }
+    }
+    return landmarks;
+  }
+
+  /**
+   * @param queue
+   *          Scratch space with room for every cell of the grid.
+   * @return The breadth-first distance from the given cell to every cell of
+   *         the grid, or -1 for cells it cannot reach.
+   */
+  private static int[] intDistances(Grid grid, int start, int[] queue) {
+    int columns = grid.getColumns();
+    byte[][] neighbors = grid.neighborMasks();
+    int[] distances = new int[grid.getRows() * columns];
+    Arrays.fill(distances, UNREACHABLE);
+    int head = 0;
+    int tail = 0;
+    distances[start] = 0;
+    queue[tail++] = start;
+    while (head < tail) {
+      int cell = queue[head++];
+      int next = distances[cell] + 1;
+      int open = Grid.mask(neighbors, cell);
+      if ((open & Grid.UP) != 0 && distances[cell - columns] == UNREACHABLE) {
+        distances[cell - columns] = next;
+        queue[tail++] = cell - columns;
+      }
+      if ((open & Grid.DOWN) != 0 && distances[cell + columns] == UNREACHABLE) {
+        distances[cell + columns] = next;
+        queue[tail++] = cell + columns;
+      }
+      if ((open & Grid.LEFT) != 0 && distances[cell - 1] == UNREACHABLE) {
+        distances[cell - 1] = next;
+        queue[tail++] = cell - 1;
+      }
+      if ((open & Grid.RIGHT) != 0 && distances[cell + 1] == UNREACHABLE) {
+        distances[cell + 1] = next;
+        queue[tail++] = cell + 1;
+      }
+    }
+    return distances;
+  }
+
+  /**
+   * @param queue
+   *          Scratch space with room for every cell of the grid.
+   * @return The breadth-first distance from the given cell to every cell of
+   *         the grid, unsigned, or {@link #SHORT_UNREACHABLE} for cells it
+   *         cannot reach, or null if some distance does not fit.
+   */
+  private static short[] shortDistances(Grid grid, int start, int[] queue) {
+    int columns = grid.getColumns();
+    byte[][] neighbors = grid.neighborMasks();
+    short[] distances = new short[grid.getRows() * columns];
+    Arrays.fill(distances, (short) SHORT_UNREACHABLE);
+    int head = 0;
+    int tail = 0;
+    distances[start] = 0;
+    queue[tail++] = start;
+    while (head < tail) {
+      int cell = queue[head++];
+      int next = (distances[cell] & SHORT_UNREACHABLE) + 1;
+      if (next == SHORT_UNREACHABLE) {
+        return null;
+      }
+      int open = Grid.mask(neighbors, cell);
+      if ((open & Grid.UP) != 0 && distances[cell - columns] == (short) SHORT_UNREACHABLE) {
+        distances[cell - columns] = (short) next;
+        queue[tail++] = cell - columns;
+      }
+      if ((open & Grid.DOWN) != 0 && distances[cell + columns] == (short) SHORT_UNREACHABLE) {
+        distances[cell + columns] = (short) next;
+        queue[tail++] = cell + columns;
+      }
+      if ((open & Grid.LEFT) != 0 && distances[cell - 1] == (short) SHORT_UNREACHABLE) {
+        distances[cell - 1] = (short) next;
+        queue[tail++] = cell - 1;
+      }
+      if ((open & Grid.RIGHT) != 0 && distances[cell + 1] == (short) SHORT_UNREACHABLE) {
+        distances[cell + 1] = (short) next;
+        queue[tail++] = cell + 1;
+      }
+    }
+    return distances;
+  }
+
+  private static int[] toInts(short[] distances) {
+    int[] table = new int[distances.length];
+    for (int i = 0; i < distances.length; ++i) {
+      int distance = distances[i] & SHORT_UNREACHABLE;
+      table[i] = distance == SHORT_UNREACHABLE ? UNREACHABLE : distance;
+    }
+    return table;
+  }
+}
@@ -1,18 +1,20 @@
 package edu.uab.cis.search.maze;
 
+import java.io.IOException;
 import java.util.Set;
 
 /**
  * A rectangular maze consisting of a start square, a goal square and some
  * obstacle squares between them.
+ * 
+ * The obstacles are held by an immutable {@link Grid}, which may be shared by
+ * many mazes with different start and goal squares.
  */
 public class Maze {
 
-  private int rows;
-  private int columns;
-  private Square start;
-  private Square goal;
-  private Set<Square> obstacles;
+  private final Grid grid;
+  private final Square start;
+  private final Square goal;
 
   /**
    * Creates a rectangular maze.
@@ -29,11 +31,23 @@ public class Maze {
    *          Squares within the maze that cannot be traveled through.
    */
   public Maze(int rows, int columns, Square start, Square goal, Set<Square> obstacles) {
-    this.rows = rows;
-    this.columns = columns;
+    this(new Grid(rows, columns, obstacles), start, goal);
+  }
+
+  /**
+   * Creates a maze over an existing grid.
+   * 
+   * @param grid
+   *          The squares of the maze and their obstacles.
+   * @param start
+   *          The start square, where the maze begins.
+   * @param goal
+   *          The goal square, where the maze ends.
+   */
+  public Maze(Grid grid, Square start, Square goal) {
+    this.grid = grid;
     this.start = start;
     this.goal = goal;
-    this.obstacles = obstacles;
     if (this.isBlocked(start)) {
       throw new IllegalArgumentException("Start square is blocked");
     }
@@ -42,6 +56,18 @@ public class Maze {
     }
   }
 
+  /**
+   * Creates a maze over an existing grid.
+   * 
+   * @param grid
+   *          The squares of the maze and their obstacles.
+   * @param query
+   *          The start and goal squares of the maze.
+   */
+  public Maze(Grid grid, Query query) {
+    this(grid, query.getStart(), query.getGoal());
+  }
+
   /**
    * @return The start square, where the maze begins.
    */
@@ -56,6 +82,47 @@ public class Maze {
     return this.goal;
   }
 
+  /**
+   * @return The squares of the maze and their obstacles.
+   */
+  public Grid getGrid() {
+    return this.grid;
+  }
+
+  /**
+   * @return The start and goal squares of the maze.
+   */
+  public Query getQuery() {
+    return new Query(this.start, this.goal);
+  }
+
+  /**
+   * @return The number of rows of squares in the maze.
+   */
+  public int getRows() {
+    return this.grid.getRows();
+  }
+
+  /**
+   * @return The number of columns of squares in the maze.
+   */
+  public int getColumns() {
+    return this.grid.getColumns();
+  }
+
+  /**
+   * Creates a maze with the same obstacles as this one but a different start
+   * and goal. The grid is shared rather than copied, so this is cheap enough
+   * to do for every query against a fixed layout.
+   * 
+   * @param query
+   *          The start and goal squares of the new maze.
+   * @return The new maze.
+   */
+  public Maze withQuery(Query query) {
+    return new Maze(this.grid, query);
+  }
+
   /**
    * Determines if the given square is blocked by an obstacle.
    * 
@@ -64,43 +131,34 @@ public class Maze {
    * @return True if the square represents an obstacle (or is out of bounds).
    */
   public boolean isBlocked(Square square) {
-    int row = square.getRow();
-    int column = square.getColumn();
-    return row < 0 || row >= this.rows || column < 0 || column >= this.columns
-        || this.obstacles.contains(square);
+    return this.grid.isBlocked(square.getRow(), square.getColumn());
+  }
+
+  /**
+   * Determines if the square at the given row and column is blocked by an
+   * obstacle.
+   * 
+   * @param row
+   *          The row of the square to be tested.
+   * @param column
+   *          The column of the square to be tested.
+   * @return True if the square represents an obstacle (or is out of bounds).
+   */
+  public boolean isBlocked(int row, int column) {
+    return this.grid.isBlocked(row, column);
   }
 
   @Override
   public String toString() {
-    StringBuilder builder = new StringBuilder();
-    // first row of obstacles
-    for (int column = 0; column < this.columns + 2; ++column) {
-      builder.append("#");
-    }
-    builder.append("\n");
-    // main rows of maze
-    for (int row = 0; row < this.rows; ++row) {
-      builder.append("#");
-      for (int column = 0; column < this.columns; ++column) {
-        Square square = new Square(row, column);
-        if (square.equals(this.getStart())) {
-          builder.append('S');
-        } else if (square.equals(this.getGoal())) {
-          builder.append('G');
-        } else if (this.obstacles.contains(square)) {
-          builder.append('#');
-        } else {
-          builder.append(' ');
-        }
-      }
-      builder.append("#\n");
-    }
-    // final row of obstacles
-    for (int column = 0; column < this.columns + 2; ++column) {
-      builder.append("#");
+    int rows = this.getRows();
+    int columns = this.getColumns();
+    StringBuilder builder = new StringBuilder((rows + 2) * (columns + 3));
+    try {
+      new MazeRenderer(this).render(builder);
+    } catch (IOException e) {
+      // a StringBuilder never throws
+      throw new AssertionError(e);
     }
-    builder.append("\n");
-    // create the resulting string
     return builder.toString();
   }
 }
@@ -0,0 +1,206 @@
+package edu.uab.cis.search.maze;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes mazes in a compact binary format.
+ *
+ * A file is a 32-byte header followed by the packed obstacle bitset of a
+ * {@link Grid}. The header holds eight 32-bit little-endian integers: the magic
+ * number {@code "MAZE"}, the format version, the number of rows and columns,
+ * and the row and column of the start and of the goal. The bitset follows as
+ * little-endian 64-bit words, one bit per square, indexed by
+ * {@code row * columns + column}.
+ *
+ * {@link #map(Path)} maps the file into memory and the grid it returns reads
+ * obstacles straight from the mapping, so loading takes the same time for any
+ * size of maze, and the operating system pages the bitset in as the search
+ * touches it.
+ */
+public final class MazeFile {
+
+  static final int MAGIC = 0x455A414D; // "MAZE" when read as little-endian bytes
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 32;
+
+  private static final int BUFFER_BYTES = 1 << 16;
+
+  private MazeFile() {
+  }
+
+  /**
+   * Writes a maze to a file, replacing any existing file.
+   *
+   * @param maze
+   *          The maze to be written.
+   * @param path
+   *          The file to write to.
+   */
+  public static void write(Maze maze, Path path) throws IOException {
+    Grid grid = maze.getGrid();
+    int words = Grid.words(grid.getRows(), grid.getColumns());
+    try (FileChannel channel = openForWriting(path)) {
+      channel.write(header(maze.getRows(), maze.getColumns(), maze.getStart(), maze.getGoal()));
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+      for (int word = 0; word < words; ++word) {
+        if (!buffer.hasRemaining()) {
+          drain(buffer, channel);
+        }
+        buffer.putLong(grid.word(word));
+      }
+      drain(buffer, channel);
+    }
+  }
+
+  /**
+   * Maps a maze file into memory. The file is not read up front, and the
+   * returned maze's grid reads obstacles from the mapping. The file must not
+   * be modified while the maze is in use.
+   *
+   * @param path
+   *          A file written by {@link #write(Maze, Path)} or
+   *          {@link #convertAscii(Reader, Path)}.
+   * @return The maze stored in the file.
+   * @throws IOException
+   *           If the file cannot be read or is not a valid maze file.
+   */
+  public static Maze map(Path path) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_BYTES) {
+        throw new IOException("Not a maze file: " + path);
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.getInt(0) != MAGIC) {
+      throw new IOException("Not a maze file: " + path);
+    }
+    if (buffer.getInt(4) != VERSION) {
+      throw new IOException("Unsupported maze file version " + buffer.getInt(4) + ": " + path);
+    }
+    int rows = buffer.getInt(8);
+    int columns = buffer.getInt(12);
+    Square start = new Square(buffer.getInt(16), buffer.getInt(20));
+    Square goal = new Square(buffer.getInt(24), buffer.getInt(28));
+    int words;
+    try {
+      words = Grid.words(rows, columns);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Invalid maze dimensions in " + path, e);
+    }
+    if (buffer.capacity() - HEADER_BYTES < (long) words * 8) {
+      throw new IOException("Maze file is truncated: " + path);
+    }
+    buffer.position(HEADER_BYTES);
+    LongBuffer bits = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    try {
+      return new Maze(new Grid(rows, columns, bits), start, goal);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Invalid maze in " + path + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Converts a maze drawn as by {@link Maze#toString()} to the binary format.
+   * The text is parsed by {@link MazeReader} as it streams in, and the bitset
+   * is written to the file as it is packed, so memory use does not depend on
+   * the size of the maze.
+   *
+   * @param ascii
+   *          The drawing, which is read to the end but not closed.
+   * @param path
+   *          The file to write to.
+   * @throws IOException
+   *           If the text cannot be read or is not a valid drawing, or the
+   *           file cannot be written.
+   */
+  public static void convertAscii(Reader ascii, Path path) throws IOException {
+    try (FileChannel channel = openForWriting(path)) {
+      ChannelSink sink = new ChannelSink(channel);
+      MazeReader parser = new MazeReader(sink);
+      parser.parse(ascii);
+      sink.finish(parser);
+    }
+  }
+
+  /**
+   * Converts a maze drawn as by {@link Maze#toString()}, in ASCII bytes, to the
+   * binary format, as {@link #convertAscii(Reader, Path)} does.
+   *
+   * @param ascii
+   *          The drawing, which is read to the end but not closed.
+   * @param path
+   *          The file to write to.
+   * @throws IOException
+   *           If the bytes cannot be read or are not a valid drawing, or the
+   *           file cannot be written.
+   */
+  public static void convertAscii(ReadableByteChannel ascii, Path path) throws IOException {
+    try (FileChannel channel = openForWriting(path)) {
+      ChannelSink sink = new ChannelSink(channel);
+      MazeReader parser = new MazeReader(sink);
+      parser.parse(ascii);
+      sink.finish(parser);
+    }
+  }
+
+  private static FileChannel openForWriting(Path path) throws IOException {
+    return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  private static ByteBuffer header(int rows, int columns, Square start, Square goal) {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(columns);
+    header.putInt(start.getRow()).putInt(start.getColumn());
+    header.putInt(goal.getRow()).putInt(goal.getColumn());
+    header.flip();
+    return header;
+  }
+
+  private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Writes the bitset to a file as it is parsed. The header is written last,
+   * once the number of rows is known.
+   */
+  private static final class ChannelSink implements MazeReader.WordSink {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    ChannelSink(FileChannel channel) throws IOException {
+      this.channel = channel;
+      channel.position(HEADER_BYTES);
+    }
+
+    @Override
+    public void write(long word) throws IOException {
+      if (!this.buffer.hasRemaining()) {
+        drain(this.buffer, this.channel);
+      }
+      this.buffer.putLong(word);
+    }
+
+    void finish(MazeReader parser) throws IOException {
+      drain(this.buffer, this.channel);
+      this.channel.write(header(parser.getRows(), parser.getColumns(), parser.getStart(), parser.getGoal()), 0);
+    }
+  }
+}
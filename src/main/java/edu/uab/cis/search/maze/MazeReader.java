@@ -0,0 +1,312 @@
+package edu.uab.cis.search.maze;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Parses mazes drawn as by {@link Maze#toString()}: a border of {@code '#'}
+ * around rows of {@code '#'} (obstacle), {@code ' '} (open), {@code 'S'}
+ * (start) and {@code 'G'} (goal), one row per line. Lines may end with
+ * {@code "\n"} or {@code "\r\n"}.
+ *
+ * The text is parsed as it streams in, a buffer at a time, and packed straight
+ * into an obstacle bitset; no {@link Square} is created per cell and at most
+ * one row of text is held at once, so the memory used beyond the bitset itself
+ * depends only on the width of the maze.
+ *
+ * The border must be complete, every row must be as wide as the border, and
+ * there must be exactly one {@code 'S'} and one {@code 'G'}. Anything else is
+ * reported as an {@link IOException} naming the offending line.
+ */
+public final class MazeReader {
+
+  /**
+   * Receives the packed obstacle bitset, one 64-bit word at a time, in order.
+   */
+  interface WordSink {
+
+    void write(long word) throws IOException;
+  }
+
+  private static final int BUFFER_CHARS = 1 << 16;
+
+  private final WordSink sink;
+
+  // the width of every line, including the border, or -1 before the first line
+  private int width = -1;
+  private int lines;
+  private int position;
+  private boolean carriageReturn;
+
+  // the latest complete row, held back until we know it is not the bottom border
+  private long[] pendingRow = new long[0];
+  private long[] row = new long[0];
+  private boolean pending;
+  private boolean pendingAllBlocked;
+  private boolean allBlocked = true;
+
+  private int rows;
+  private int startRow = -1;
+  private int startColumn;
+  private int goalRow = -1;
+  private int goalColumn;
+
+  // bits not yet written to the sink
+  private long word;
+  private int bits;
+
+  MazeReader(WordSink sink) {
+    this.sink = sink;
+  }
+
+  /**
+   * Reads a maze from text.
+   *
+   * @param reader
+   *          The text, which is read to the end but not closed.
+   * @return The maze.
+   * @throws IOException
+   *           If the text cannot be read or is not a valid maze.
+   */
+  public static Maze read(Reader reader) throws IOException {
+    ArraySink sink = new ArraySink();
+    MazeReader parser = new MazeReader(sink);
+    parser.parse(reader);
+    return parser.toMaze(sink);
+  }
+
+  /**
+   * Reads a maze from ASCII bytes.
+   *
+   * @param channel
+   *          The bytes, which are read to the end but not closed.
+   * @return The maze.
+   * @throws IOException
+   *           If the bytes cannot be read or are not a valid maze.
+   */
+  public static Maze read(ReadableByteChannel channel) throws IOException {
+    ArraySink sink = new ArraySink();
+    MazeReader parser = new MazeReader(sink);
+    parser.parse(channel);
+    return parser.toMaze(sink);
+  }
+
+  /**
+   * Parses all of the given text, then checks that the maze is complete.
+   */
+  void parse(Reader reader) throws IOException {
+    char[] buffer = new char[BUFFER_CHARS];
+    int count;
+    while ((count = reader.read(buffer)) >= 0) {
+      for (int i = 0; i < count; ++i) {
+        this.accept(buffer[i]);
+      }
+    }
+    this.finish();
+  }
+
+  /**
+   * Parses all of the given bytes, then checks that the maze is complete.
+   */
+  void parse(ReadableByteChannel channel) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_CHARS);
+    while (channel.read(buffer) >= 0) {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        byte b = buffer.get();
+        if (b < 0) {
+          throw this.error("Non-ASCII byte");
+        }
+        this.accept((char) b);
+      }
+      buffer.clear();
+    }
+    this.finish();
+  }
+
+  int getRows() {
+    return this.rows;
+  }
+
+  int getColumns() {
+    return this.width - 2;
+  }
+
+  Square getStart() {
+    return new Square(this.startRow, this.startColumn);
+  }
+
+  Square getGoal() {
+    return new Square(this.goalRow, this.goalColumn);
+  }
+
+  private Maze toMaze(ArraySink sink) {
+    long[] obstacles = Arrays.copyOf(sink.words, Grid.words(this.getRows(), this.getColumns()));
+    Grid grid = new Grid(this.getRows(), this.getColumns(), obstacles);
+    return new Maze(grid, this.getStart(), this.getGoal());
+  }
+
+  private void accept(char c) throws IOException {
+    if (this.carriageReturn) {
+      if (c != '\n') {
+        throw this.error("Carriage return without line feed");
+      }
+      this.carriageReturn = false;
+      this.endLine();
+      return;
+    }
+    if (c == '\n') {
+      this.endLine();
+      return;
+    }
+    if (c == '\r') {
+      this.carriageReturn = true;
+      return;
+    }
+    int position = this.position++;
+    if (this.width < 0) {
+      // the top border, which sets the width
+      if (c != '#') {
+        throw this.error("Top border must be all '#'");
+      }
+      return;
+    }
+    if (position >= this.width) {
+      throw this.error("Line is wider than the top border");
+    }
+    if (position == 0 || position == this.width - 1) {
+      if (c != '#') {
+        throw this.error("Row must start and end with '#'");
+      }
+      return;
+    }
+    int column = position - 1;
+    switch (c) {
+    case '#':
+      this.row[column >>> 6] |= 1L << column;
+      break;
+    case ' ':
+      this.allBlocked = false;
+      break;
+    case 'S':
+      if (this.startRow >= 0) {
+        throw this.error("More than one 'S'");
+      }
+      this.startRow = this.lines - 1;
+      this.startColumn = column;
+      this.allBlocked = false;
+      break;
+    case 'G':
+      if (this.goalRow >= 0) {
+        throw this.error("More than one 'G'");
+      }
+      this.goalRow = this.lines - 1;
+      this.goalColumn = column;
+      this.allBlocked = false;
+      break;
+    default:
+      throw this.error("Unexpected character '" + c + "'");
+    }
+  }
+
+  private void endLine() throws IOException {
+    if (this.width < 0) {
+      if (this.position < 2) {
+        throw this.error("Top border must be at least two squares wide");
+      }
+      this.width = this.position;
+      int words = (this.width - 2 + 63) >>> 6;
+      this.row = new long[words];
+      this.pendingRow = new long[words];
+    } else {
+      if (this.position != this.width) {
+        throw this.error("Line is narrower than the top border");
+      }
+      // the previous line was not the bottom border after all
+      if (this.pending) {
+        this.writePendingRow();
+      }
+      long[] swap = this.pendingRow;
+      this.pendingRow = this.row;
+      this.row = swap;
+      Arrays.fill(this.row, 0);
+      this.pending = true;
+      this.pendingAllBlocked = this.allBlocked;
+      this.allBlocked = true;
+    }
+    ++this.lines;
+    this.position = 0;
+  }
+
+  private void finish() throws IOException {
+    if (this.carriageReturn) {
+      throw this.error("Carriage return without line feed");
+    }
+    if (this.position > 0) {
+      // the last line had no line terminator
+      this.endLine();
+    }
+    if (this.width < 0) {
+      throw new IOException("Maze text is empty");
+    }
+    // the last line is the bottom border
+    if (!this.pending || !this.pendingAllBlocked) {
+      throw new IOException("Maze text has no bottom border");
+    }
+    if (this.startRow < 0 || this.startRow >= this.rows) {
+      throw new IOException("Maze text has no 'S'");
+    }
+    if (this.goalRow < 0 || this.goalRow >= this.rows) {
+      throw new IOException("Maze text has no 'G'");
+    }
+    if (this.bits > 0) {
+      this.sink.write(this.word);
+    }
+  }
+
+  /**
+   * Appends the held-back row to the bitset.
+   */
+  private void writePendingRow() throws IOException {
+    int columns = this.width - 2;
+    long[] row = this.pendingRow;
+    for (int i = 0; i < row.length; ++i) {
+      int count = Math.min(64, columns - (i << 6));
+      long value = row[i];
+      this.word |= value << this.bits;
+      int total = this.bits + count;
+      if (total >= 64) {
+        this.sink.write(this.word);
+        total -= 64;
+        // the bits of value that did not fit
+        this.word = this.bits == 0 ? 0 : value >>> (64 - this.bits);
+      }
+      this.bits = total;
+    }
+    ++this.rows;
+  }
+
+  private IOException error(String message) {
+    return new IOException(message + " on line " + (this.lines + 1));
+  }
+
+  /**
+   * Collects the bitset in a growing array.
+   */
+  private static final class ArraySink implements WordSink {
+
+    long[] words = new long[64];
+    private int size;
+
+    @Override
+    public void write(long word) {
+      if (this.size == this.words.length) {
+        this.words = Arrays.copyOf(this.words, this.size * 2);
+      }
+      this.words[this.size++] = word;
+    }
+  }
+}
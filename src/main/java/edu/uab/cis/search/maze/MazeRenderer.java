@@ -0,0 +1,237 @@
+package edu.uab.cis.search.maze;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Draws a maze as text, in the format of {@link Maze#toString()}, optionally
+ * marking the squares of a path with {@code '*'} and the other explored
+ * squares with {@code '.'}.
+ *
+ * The drawing is produced a fixed-size buffer at a time and handed to the
+ * output as each buffer fills, so mazes of any size can be drawn to a file or a
+ * socket without building the whole drawing in memory. Overlays are kept as
+ * sorted arrays of cell indices, which cost four bytes per marked square and
+ * are walked in step with the drawing instead of being looked up per square.
+ */
+public class MazeRenderer {
+
+  /**
+   * Marks a square on the path.
+   */
+  public static final char PATH = '*';
+
+  /**
+   * Marks an explored square that is not on the path.
+   */
+  public static final char EXPLORED = '.';
+
+  private static final int BUFFER_CHARS = 1 << 13;
+
+  private static final int[] NONE = new int[0];
+
+  private final Maze maze;
+  private int[] path = NONE;
+  private int[] explored = NONE;
+
+  /**
+   * Creates a renderer for the given maze, with no overlays.
+   */
+  public MazeRenderer(Maze maze) {
+    this.maze = maze;
+  }
+
+  /**
+   * @param path
+   *          Squares to mark as the path, or null for none.
+   * @return This renderer.
+   */
+  public MazeRenderer path(Collection<Square> path) {
+    this.path = this.cells(path);
+    return this;
+  }
+
+  /**
+   * @param explored
+   *          Squares to mark as explored, or null for none.
+   * @return This renderer.
+   */
+  public MazeRenderer explored(Collection<Square> explored) {
+    this.explored = this.cells(explored);
+    return this;
+  }
+
+  /**
+   * Overlays the path found and squares explored by the given solver.
+   *
+   * @return This renderer.
+   */
+  public MazeRenderer solver(Solver solver) {
+    return this.path(solver.getPathFromStartToGoal()).explored(solver.getExploredSquares());
+  }
+
+  /**
+   * Draws the maze to the given output. A {@link Writer} or
+   * {@link StringBuilder} is handed whole buffers; any other output is handed
+   * {@link CharSequence}s. The output is not flushed or closed.
+   */
+  public void render(final Appendable out) throws IOException {
+    if (out instanceof Writer) {
+      final Writer writer = (Writer) out;
+      this.render(new Sink() {
+        @Override
+        void flush(char[] buffer, int length) throws IOException {
+          writer.write(buffer, 0, length);
+        }
+      });
+    } else if (out instanceof StringBuilder) {
+      final StringBuilder builder = (StringBuilder) out;
+      this.render(new Sink() {
+        @Override
+        void flush(char[] buffer, int length) {
+          builder.append(buffer, 0, length);
+        }
+      });
+    } else {
+      this.render(new Sink() {
+        @Override
+        void flush(char[] buffer, int length) throws IOException {
+          out.append(new String(buffer, 0, length));
+        }
+      });
+    }
+  }
+
+  /**
+   * Draws the maze to the given output as ASCII bytes. The output is not
+   * flushed or closed.
+   */
+  public void render(final OutputStream out) throws IOException {
+    this.render(new Sink() {
+      private final byte[] bytes = new byte[BUFFER_CHARS];
+
+      @Override
+      void flush(char[] buffer, int length) throws IOException {
+        for (int i = 0; i < length; ++i) {
+          this.bytes[i] = (byte) buffer[i];
+        }
+        out.write(this.bytes, 0, length);
+      }
+    });
+  }
+
+  /**
+   * Receives the drawing a buffer at a time.
+   */
+  private abstract static class Sink {
+
+    final char[] buffer = new char[BUFFER_CHARS];
+    int length;
+
+    void put(char c) throws IOException {
+      if (this.length == this.buffer.length) {
+        this.flush(this.buffer, this.length);
+        this.length = 0;
+      }
+      this.buffer[this.length++] = c;
+    }
+
+    void finish() throws IOException {
+      if (this.length > 0) {
+        this.flush(this.buffer, this.length);
+        this.length = 0;
+      }
+    }
+
+    abstract void flush(char[] buffer, int length) throws IOException;
+  }
+
+  private void render(Sink sink) throws IOException {
+    Grid grid = this.maze.getGrid();
+    int rows = grid.getRows();
+    int columns = grid.getColumns();
+    int start = this.cell(this.maze.getStart());
+    int goal = this.cell(this.maze.getGoal());
+    int[] path = this.path;
+    int[] explored = this.explored;
+    int nextPath = 0;
+    int nextExplored = 0;
+
+    // first row of obstacles
+    for (int column = 0; column < columns + 2; ++column) {
+      sink.put('#');
+    }
+    sink.put('\n');
+    // main rows of maze
+    int cell = 0;
+    for (int row = 0; row < rows; ++row) {
+      sink.put('#');
+      for (int column = 0; column < columns; ++column, ++cell) {
+        // both overlays are sorted, so each only has to catch up to this cell
+        while (nextPath < path.length && path[nextPath] < cell) {
+          ++nextPath;
+        }
+        while (nextExplored < explored.length && explored[nextExplored] < cell) {
+          ++nextExplored;
+        }
+        if (cell == start) {
+          sink.put('S');
+        } else if (cell == goal) {
+          sink.put('G');
+        } else if (grid.isBlocked(row, column)) {
+          sink.put('#');
+        } else if (nextPath < path.length && path[nextPath] == cell) {
+          sink.put(PATH);
+        } else if (nextExplored < explored.length && explored[nextExplored] == cell) {
+          sink.put(EXPLORED);
+        } else {
+          sink.put(' ');
+        }
+      }
+      sink.put('#');
+      sink.put('\n');
+    }
+    // final row of obstacles
+    for (int column = 0; column < columns + 2; ++column) {
+      sink.put('#');
+    }
+    sink.put('\n');
+    sink.finish();
+  }
+
+  /**
+   * @return The sorted cell indices of the given squares that lie within the
+   *         maze.
+   */
+  private int[] cells(Collection<Square> squares) {
+    if (squares == null || squares.isEmpty()) {
+      return NONE;
+    }
+    int rows = this.maze.getRows();
+    int columns = this.maze.getColumns();
+    int[] cells = new int[squares.size()];
+    int count = 0;
+    for (Square square : squares) {
+      int row = square.getRow();
+      int column = square.getColumn();
+      if (row >= 0 && row < rows && column >= 0 && column < columns) {
+        cells[count++] = row * columns + column;
+      }
+    }
+    Arrays.sort(cells, 0, count);
+    return count == cells.length ? cells : Arrays.copyOf(cells, count);
+  }
+
+  private int cell(Square square) {
+    int row = square.getRow();
+    int column = square.getColumn();
+    int columns = this.maze.getColumns();
+    if (row < 0 || row >= this.maze.getRows() || column < 0 || column >= columns) {
+      return -1;
+    }
+    return row * columns + column;
+  }
+}
@@ -0,0 +1,55 @@
+package edu.uab.cis.search.maze;
+
+import java.util.Locale;
+
+/**
+ * Publishes the {@link SearchStats} of every search to a
+ * {@link MetricsRegistry}, tagged with the engine that ran it.
+ *
+ * <ul>
+ * <li>{@code maze.search.solves} counts searches</li>
+ * <li>{@code maze.search.expanded}, {@code maze.search.pushed},
+ * {@code maze.search.open.max}, {@code maze.search.duplicates} and
+ * {@code maze.search.heuristics} record the counts of each search</li>
+ * <li>{@code maze.search.time} records the wall time of each search</li>
+ * <li>{@code maze.search.allocated} records the bytes allocated by each
+ * search, where the JVM can measure them</li>
+ * </ul>
+ */
+public class MetricsListener implements SearchListener {
+
+  private final MetricsRegistry registry;
+  private final String prefix;
+
+  /**
+   * Publishes to the given registry under the {@code maze.search} prefix.
+   */
+  public MetricsListener(MetricsRegistry registry) {
+    this(registry, "maze.search");
+  }
+
+  /**
+   * Publishes to the given registry under the given prefix.
+   */
+  public MetricsListener(MetricsRegistry registry, String prefix) {
+    this.registry = registry;
+    this.prefix = prefix;
+  }
+
+  @Override
+  public void searchCompleted(Maze maze, SearchStats stats) {
+    String[] tags = { "engine", stats.getEngine().name().toLowerCase(Locale.ROOT) };
+    this.registry.count(this.prefix + ".solves", 1, tags);
+    this.registry.record(this.prefix + ".expanded", stats.getNodesExpanded(), tags);
+    this.registry.record(this.prefix + ".pushed", stats.getNodesPushed(), tags);
+    this.registry.record(this.prefix + ".open.max", stats.getMaxOpenSize(), tags);
+    this.registry.record(this.prefix + ".duplicates", stats.getDuplicatePushes(), tags);
+    this.registry.record(this.prefix + ".heuristics", stats.getHeuristicEvaluations(), tags);
+    if (stats.getWallNanos() >= 0) {
+      this.registry.recordNanos(this.prefix + ".time", stats.getWallNanos(), tags);
+    }
+    if (stats.getAllocatedBytes() >= 0) {
+      this.registry.record(this.prefix + ".allocated", stats.getAllocatedBytes(), tags);
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package edu.uab.cis.search.maze;
+
+/**
+ * A minimal registry of named, tagged meters, shaped after Micrometer's
+ * {@code MeterRegistry} so that an adapter to Micrometer, Dropwizard or a
+ * statsd client is a few lines long, without this library depending on any of
+ * them.
+ *
+ * Tags are given as alternating keys and values, as in Micrometer's
+ * {@code Tags.of(String...)}. Implementations must be thread-safe.
+ *
+ * @see MetricsListener
+ */
+public interface MetricsRegistry {
+
+  /**
+   * Adds to a monotonically increasing counter, like a Micrometer
+   * {@code Counter}.
+   */
+  void count(String name, long amount, String... tags);
+
+  /**
+   * Records one observation of a distribution, like a Micrometer
+   * {@code DistributionSummary}.
+   */
+  void record(String name, long value, String... tags);
+
+  /**
+   * Records one duration, in nanoseconds, like a Micrometer {@code Timer}.
+   */
+  void recordNanos(String name, long nanos, String... tags);
+}
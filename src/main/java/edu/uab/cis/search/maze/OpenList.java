@@ -0,0 +1,61 @@
+package edu.uab.cis.search.maze;
+
+/**
+ * The open list of an index-based search: the cells waiting to be expanded,
+ * each with an f score and an h score.
+ * 
+ * Cells are removed in order of f, then h, then cell index. Since a cell index
+ * is {@code row * columns + column}, that is the f, h, row, column order
+ * documented on {@link Solver}. Each cell is queued at most once; a cell that
+ * is reached again with a lower f is updated with
+ * {@link #decreaseKey(int, int, int)}. The h score is a function of the cell,
+ * so a cell must be given the same h every time it is queued.
+ */
+interface OpenList {
+
+  /**
+   * Makes sure cells {@code 0} to {@code cells - 1} can be queued.
+   */
+  void ensureCells(int cells);
+
+  boolean isEmpty();
+
+  /**
+   * @return The number of cells currently queued.
+   */
+  int size();
+
+  /**
+   * Removes all queued cells.
+   */
+  void clear();
+
+  /**
+   * @return True if the cell is currently queued.
+   */
+  boolean contains(int cell);
+
+  /**
+   * Queues a cell that is not already queued.
+   */
+  void push(int cell, int f, int h);
+
+  /**
+   * Lowers the f score of a cell that is already queued.
+   */
+  void decreaseKey(int cell, int f, int h);
+
+  /**
+   * @return The smallest f score of any queued cell. Only valid if the list is
+   *         not empty.
+   */
+  int minF();
+
+  /**
+   * Removes the first cell in f, h, cell order. Only valid if the list is not
+   * empty.
+   * 
+   * @return The removed cell.
+   */
+  int pop();
+}
@@ -0,0 +1,259 @@
+package edu.uab.cis.search.maze;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of solved paths, for workloads where the same queries are
+ * asked of the same grid over and over.
+ * 
+ * Paths are keyed by the grid's lineage and version plus the query, and are
+ * stored compactly as direction codes. When the least recently used path has
+ * to make room for a new one, it is evicted. Once a newer version of a grid
+ * (see {@link Grid#withBlocked}) is queried, every path cached for older
+ * versions of that grid is dropped, since its obstacles may have changed.
+ * The newest version of a grid is only remembered while some path is cached
+ * for it, so grids built afresh for each query do not pile up.
+ * 
+ * The cache is thread-safe. Paths are computed outside of the lock, so two
+ * threads that miss on the same query at the same time both solve it.
+ */
+public class PathCache {
+
+  /**
+   * The identity of a cached path.
+   */
+  private static final class Key {
+
+    private final long lineage;
+    private final int version;
+    private final Query query;
+
+    Key(Grid grid, Query query) {
+      this.lineage = grid.getLineage();
+      this.version = grid.getVersion();
+      this.query = query;
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) (this.lineage ^ (this.lineage >>> 32)) * 31 * 31 + this.version * 31 + this.query.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj instanceof Key) {
+        Key that = (Key) obj;
+        return this.lineage == that.lineage && this.version == that.version && this.query.equals(that.query);
+      }
+      return false;
+    }
+  }
+
+  /**
+   * The newest version seen of a grid lineage, and how many paths are cached
+   * for it.
+   */
+  private static final class Lineage {
+
+    private int version;
+    private int paths;
+
+    Lineage(int version) {
+      this.version = version;
+    }
+  }
+
+  private final int maximumSize;
+  private final SolverOptions options;
+
+  private final LinkedHashMap<Key, CompactPath> paths;
+  // the lineages with paths cached, or being solved, by lineage id
+  private final Map<Long, Lineage> lineages = new HashMap<>();
+
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * Creates a cache that solves with the default options.
+   * 
+   * @param maximumSize
+   *          The maximum number of paths to keep.
+   */
+  public PathCache(int maximumSize) {
+    this(maximumSize, new SolverOptions());
+  }
+
+  /**
+   * Creates a cache.
+   * 
+   * @param maximumSize
+   *          The maximum number of paths to keep.
+   * @param options
+   *          Options controlling how paths are solved on a cache miss.
+   */
+  public PathCache(final int maximumSize, SolverOptions options) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("Maximum size must be positive");
+    }
+    this.maximumSize = maximumSize;
+    this.options = options;
+    this.paths = new LinkedHashMap<Key, CompactPath>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, CompactPath> eldest) {
+        if (this.size() > maximumSize) {
+          ++PathCache.this.evictions;
+          PathCache.this.release(eldest.getKey().lineage);
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Finds the path for the given query, solving it only if it is not already
+   * cached.
+   * 
+   * @param grid
+   *          The squares to search and their obstacles.
+   * @param query
+   *          The start and goal squares.
+   * @return The squares along the path from the start to the goal, as a
+   *         read-only list shared with the cache. If the cache's options limit
+   *         the search and a limit stopped it, the path is empty and is not
+   *         cached.
+   */
+  public List<Square> getPath(Grid grid, Query query) {
+    Key key = new Key(grid, query);
+    synchronized (this) {
+      this.purgeOlderVersions(grid);
+      CompactPath path = this.paths.get(key);
+      if (path != null) {
+        ++this.hits;
+        return path;
+      }
+      ++this.misses;
+    }
+    Solver solver = new Solver(grid, query, this.options);
+    CompactPath path = solver.getCompactPath();
+    // a search stopped by a limit in the options may have missed the path
+    boolean completed = solver.getTermination() == Solver.Termination.COMPLETED;
+    synchronized (this) {
+      // only keep the path if the grid has not been superseded meanwhile
+      Lineage newest = this.lineages.get(key.lineage);
+      if (newest == null) {
+        newest = new Lineage(key.version);
+        this.lineages.put(key.lineage, newest);
+      }
+      if (completed && newest.version <= key.version) {
+        // counted before the put, which may evict this lineage's eldest path
+        if (!this.paths.containsKey(key)) {
+          ++newest.paths;
+        }
+        this.paths.put(key, path);
+      } else if (newest.paths == 0) {
+        this.lineages.remove(key.lineage);
+      }
+    }
+    return path;
+  }
+
+  /**
+   * Drops every path cached for any version of the given grid.
+   */
+  public synchronized void invalidate(Grid grid) {
+    long lineage = grid.getLineage();
+    for (Iterator<Key> keys = this.paths.keySet().iterator(); keys.hasNext();) {
+      if (keys.next().lineage == lineage) {
+        keys.remove();
+      }
+    }
+    this.lineages.remove(lineage);
+  }
+
+  /**
+   * Drops every cached path.
+   */
+  public synchronized void invalidateAll() {
+    this.paths.clear();
+    this.lineages.clear();
+  }
+
+  /**
+   * @return The number of paths currently cached.
+   */
+  public synchronized int size() {
+    return this.paths.size();
+  }
+
+  /**
+   * @return The maximum number of paths to keep.
+   */
+  public int getMaximumSize() {
+    return this.maximumSize;
+  }
+
+  /**
+   * @return The number of queries answered from the cache.
+   */
+  public synchronized long getHits() {
+    return this.hits;
+  }
+
+  /**
+   * @return The number of queries that had to be solved.
+   */
+  public synchronized long getMisses() {
+    return this.misses;
+  }
+
+  /**
+   * @return The number of paths dropped to make room for newer ones.
+   *         Invalidated paths are not counted.
+   */
+  public synchronized long getEvictions() {
+    return this.evictions;
+  }
+
+  /**
+   * @return The number of grid lineages whose newest version is remembered.
+   */
+  synchronized int lineageCount() {
+    return this.lineages.size();
+  }
+
+  private void purgeOlderVersions(Grid grid) {
+    long lineage = grid.getLineage();
+    Lineage newest = this.lineages.get(lineage);
+    if (newest == null) {
+      this.lineages.put(lineage, new Lineage(grid.getVersion()));
+    } else if (newest.version < grid.getVersion()) {
+      for (Iterator<Key> keys = this.paths.keySet().iterator(); keys.hasNext();) {
+        Key key = keys.next();
+        if (key.lineage == lineage && key.version < grid.getVersion()) {
+          keys.remove();
+          --newest.paths;
+        }
+      }
+      newest.version = grid.getVersion();
+    }
+  }
+
+  /**
+   * Forgets a path evicted for the given lineage, and the lineage itself once
+   * none of its paths are left.
+   */
+  private void release(long lineage) {
+    Lineage entry = this.lineages.get(lineage);
+    if (entry != null && --entry.paths <= 0) {
+      this.lineages.remove(lineage);
+    }
+  }
+}
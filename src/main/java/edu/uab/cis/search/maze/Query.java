@@ -0,0 +1,59 @@
+package edu.uab.cis.search.maze;
+
+/**
+ * A request to find a path between a start square and a goal square.
+ */
+public class Query {
+
+  private final Square start;
+  private final Square goal;
+
+  /**
+   * Creates a query.
+   * 
+   * @param start
+   *          The start square, where the path begins.
+   * @param goal
+   *          The goal square, where the path ends.
+   */
+  public Query(Square start, Square goal) {
+    if (start == null || goal == null) {
+      throw new NullPointerException("Start and goal squares are required");
+    }
+    this.start = start;
+    this.goal = goal;
+  }
+
+  /**
+   * @return The start square, where the path begins.
+   */
+  public Square getStart() {
+    return this.start;
+  }
+
+  /**
+   * @return The goal square, where the path ends.
+   */
+  public Square getGoal() {
+    return this.goal;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * this.start.hashCode() + this.goal.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof Query) {
+      Query that = (Query) obj;
+      return this.start.equals(that.start) && this.goal.equals(that.goal);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s->%s", this.start, this.goal);
+  }
+}
@@ -0,0 +1,42 @@
+package edu.uab.cis.search.maze;
+
+/**
+ * The index-based search engines used by one thread, kept so that their
+ * per-cell arrays can be reused from one search to the next instead of being
+ * allocated for every {@link Solver}. Engines are created on first use.
+ * Instances are not thread-safe.
+ */
+final class SearchBuffers {
+
+  private IndexedAStar heapSearch;
+  private IndexedAStar bucketSearch;
+  private JumpPointSearch jumpPointSearch;
+  private BidirectionalAStar bidirectionalSearch;
+
+  IndexedAStar indexed(Solver.OpenListType openList) {
+    if (openList == Solver.OpenListType.BUCKET) {
+      if (this.bucketSearch == null) {
+        this.bucketSearch = new IndexedAStar(new BucketOpenList());
+      }
+      return this.bucketSearch;
+    }
+    if (this.heapSearch == null) {
+      this.heapSearch = new IndexedAStar(new CellHeap());
+    }
+    return this.heapSearch;
+  }
+
+  JumpPointSearch jumpPoint() {
+    if (this.jumpPointSearch == null) {
+      this.jumpPointSearch = new JumpPointSearch();
+    }
+    return this.jumpPointSearch;
+  }
+
+  BidirectionalAStar bidirectional() {
+    if (this.bidirectionalSearch == null) {
+      this.bidirectionalSearch = new BidirectionalAStar();
+    }
+    return this.bidirectionalSearch;
+  }
+}
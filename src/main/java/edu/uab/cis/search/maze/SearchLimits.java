@@ -0,0 +1,81 @@
+package edu.uab.cis.search.maze;
+
+/**
+ * The limits on one search: a budget of expansions, a deadline and a
+ * cancellation token, any of which may be absent.
+ *
+ * Engines call {@link #stop()} once per expansion. The budget is checked
+ * every time, with a single comparison; the token and the clock only on the
+ * first expansion and then once every {@value #CHECK_INTERVAL} expansions,
+ * so that a search reads neither a volatile field nor the clock in its inner
+ * loop. Instances are not thread-safe, and are used for a single search.
+ */
+final class SearchLimits {
+
+  static final int CHECK_INTERVAL = 1024;
+
+  private final long maxExpansions;
+  private final boolean hasDeadline;
+  private final long deadline;
+  private final CancellationToken token;
+  private long expansions;
+  private Solver.Termination termination = Solver.Termination.COMPLETED;
+
+  private SearchLimits(long maxExpansions, boolean hasDeadline, long deadline, CancellationToken token) {
+    this.maxExpansions = maxExpansions;
+    this.hasDeadline = hasDeadline;
+    this.deadline = deadline;
+    this.token = token;
+  }
+
+  /**
+   * @param startNanos
+   *          The {@link System#nanoTime()} at which the search started.
+   * @return The limits set by the given options, or null if there are none,
+   *         so that an unlimited search does not check anything.
+   */
+  static SearchLimits of(SolverOptions options, long startNanos) {
+    long deadlineNanos = options.getDeadlineNanos();
+    if (options.getMaxExpansions() == Long.MAX_VALUE && deadlineNanos < 0
+        && options.getCancellationToken() == null) {
+      return null;
+    }
+    return new SearchLimits(
+        options.getMaxExpansions(),
+        deadlineNanos >= 0,
+        startNanos + deadlineNanos,
+        options.getCancellationToken());
+  }
+
+  /**
+   * Counts an expansion that is about to happen.
+   *
+   * @return True if the search must stop instead.
+   */
+  boolean stop() {
+    if (++this.expansions > this.maxExpansions) {
+      this.termination = Solver.Termination.EXPANSION_LIMIT;
+      return true;
+    }
+    if ((this.expansions & (CHECK_INTERVAL - 1)) != 1) {
+      return false;
+    }
+    if (this.token != null && this.token.isCancelled()) {
+      this.termination = Solver.Termination.CANCELLED;
+      return true;
+    }
+    if (this.hasDeadline && System.nanoTime() - this.deadline >= 0) {
+      this.termination = Solver.Termination.DEADLINE;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return Why the search ended: {@link Solver.Termination#COMPLETED} unless
+   *         {@link #stop()} has returned true.
+   */
+  Solver.Termination getTermination() {
+    return this.termination;
+  }
+}
@@ -0,0 +1,23 @@
+package edu.uab.cis.search.maze;
+
+/**
+ * Receives the {@link SearchStats} of every search run with the
+ * {@link SolverOptions} it is registered with.
+ *
+ * Listeners are called on the thread that ran the search, after the search has
+ * finished. A listener registered with options shared by a
+ * {@link BatchSolver} is called from many threads at once, and must be
+ * thread-safe.
+ */
+public interface SearchListener {
+
+  /**
+   * Called once a search has finished.
+   *
+   * @param maze
+   *          The maze that was searched.
+   * @param stats
+   *          How the search behaved.
+   */
+  void searchCompleted(Maze maze, SearchStats stats);
+}
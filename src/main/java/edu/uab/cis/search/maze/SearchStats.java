@@ -0,0 +1,144 @@
+package edu.uab.cis.search.maze;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measurements of how one {@link Solver} search behaved.
+ *
+ * The counts are kept by every search at the cost of a few integer increments.
+ * The wall time and allocated bytes are only measured when a
+ * {@link SearchListener} is registered with {@link SolverOptions#listener}, and
+ * are -1 otherwise.
+ */
+public final class SearchStats {
+
+  private static final ThreadMXBean THREADS = allocationTrackingThreads();
+
+  private final Solver.Engine engine;
+  private final long nodesExpanded;
+  private final long nodesPushed;
+  private final long maxOpenSize;
+  private final long duplicatePushes;
+  private final long heuristicEvaluations;
+  private final long wallNanos;
+  private final long allocatedBytes;
+
+  SearchStats(
+      Solver.Engine engine,
+      long nodesExpanded,
+      long nodesPushed,
+      long maxOpenSize,
+      long duplicatePushes,
+      long heuristicEvaluations,
+      long wallNanos,
+      long allocatedBytes) {
+    this.engine = engine;
+    this.nodesExpanded = nodesExpanded;
+    this.nodesPushed = nodesPushed;
+    this.maxOpenSize = maxOpenSize;
+    this.duplicatePushes = duplicatePushes;
+    this.heuristicEvaluations = heuristicEvaluations;
+    this.wallNanos = wallNanos;
+    this.allocatedBytes = allocatedBytes;
+  }
+
+  /**
+   * @return The engine that ran the search.
+   */
+  public Solver.Engine getEngine() {
+    return this.engine;
+  }
+
+  /**
+   * @return The number of nodes taken off the open list and expanded. For
+   *         {@link Solver.Engine#JUMP_POINT} these are jump points only.
+   */
+  public long getNodesExpanded() {
+    return this.nodesExpanded;
+  }
+
+  /**
+   * @return The number of entries added to the open list, including the start.
+   */
+  public long getNodesPushed() {
+    return this.nodesPushed;
+  }
+
+  /**
+   * @return The largest number of entries on the open list at once.
+   */
+  public long getMaxOpenSize() {
+    return this.maxOpenSize;
+  }
+
+  /**
+   * @return The number of times a square was reached again by a path that was
+   *         no cheaper, as reported by {@link Solver#getDuplicatesAvoided()}.
+   */
+  public long getDuplicatePushes() {
+    return this.duplicatePushes;
+  }
+
+  /**
+   * @return The number of times the heuristic was computed.
+   */
+  public long getHeuristicEvaluations() {
+    return this.heuristicEvaluations;
+  }
+
+  /**
+   * @return The wall-clock time taken by the search, in nanoseconds, or -1 if
+   *         it was not measured.
+   */
+  public long getWallNanos() {
+    return this.wallNanos;
+  }
+
+  /**
+   * @return The number of bytes allocated by the searching thread during the
+   *         search, or -1 if it was not measured or the JVM cannot measure it.
+   */
+  public long getAllocatedBytes() {
+    return this.allocatedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s[expanded=%d, pushed=%d, maxOpen=%d, duplicates=%d, heuristics=%d, nanos=%d, bytes=%d]",
+        this.engine,
+        this.nodesExpanded,
+        this.nodesPushed,
+        this.maxOpenSize,
+        this.duplicatePushes,
+        this.heuristicEvaluations,
+        this.wallNanos,
+        this.allocatedBytes);
+  }
+
+  /**
+   * @return The number of bytes allocated so far by the current thread, or -1
+   *         if the JVM cannot tell.
+   */
+  static long currentThreadAllocatedBytes() {
+    if (THREADS == null) {
+      return -1;
+    }
+    return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static ThreadMXBean allocationTrackingThreads() {
+    try {
+      ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+      if (threads instanceof com.sun.management.ThreadMXBean
+          && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+          && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemoryEnabled()) {
+        return threads;
+      }
+    } catch (LinkageError e) {
+      // not a HotSpot-derived JVM
+    }
+    return null;
+  }
+}
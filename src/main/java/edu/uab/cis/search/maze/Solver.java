@@ -2,8 +2,9 @@ package edu.uab.cis.search.maze;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Set;
 
@@ -25,14 +26,172 @@ import java.util.Set;
  * <li>Squares with the same f(x), h(x) and row should be ordered by column,
  * with smaller columns first</li>
  * </ul>
+ * 
+ * The search can be run by one of several {@link Engine}s. The A* engines all
+ * explore squares in this order.
+ *
+ * With {@link SolverOptions#landmarks}, the {@link Engine#NODE} and
+ * {@link Engine#INDEXED} engines raise h(x) to the landmarks' bound wherever
+ * that is larger than the Manhattan distance. The path length is unchanged,
+ * but usually far fewer squares are explored.
+ *
+ * Those two engines can also search weighted terrain: with
+ * {@link SolverOptions#edgeCost}, g(x) is the total cost of the steps rather
+ * than their number, and the Manhattan distance is scaled by the lowest step
+ * cost. {@link SolverOptions#heuristic} replaces the Manhattan distance
+ * altogether.
+ *
+ * For faster, bounded-suboptimal paths, {@link SolverOptions#weight} weights
+ * h(x) in the f(x) score of those engines, and {@link SolverOptions#anytime}
+ * turns the {@link Engine#NODE} engine into an anytime search that keeps
+ * improving its path until a deadline. Either way,
+ * {@link #getSuboptimalityBound()} tells how far from optimal the path may be.
+ *
+ * If no path joins the start and the goal, the path is empty. If the grid's
+ * connected regions have already been labeled, for example for an earlier
+ * version of it (see {@link Grid#withBlocked}), this is found out before
+ * searching, and then nothing is explored. {@link SolverOptions#checkReachability}
+ * labels them on first use.
+ *
+ * A search can also be bounded by {@link SolverOptions#maxExpansions},
+ * {@link SolverOptions#deadline} and {@link SolverOptions#cancellationToken}.
+ * If one of them stops it before the goal is reached, the path is empty,
+ * {@link #getTermination()} tells why, and {@link #getPartialPath()} leads
+ * from the start toward the goal as far as the search got.
  */
 public class Solver {
 
+  /**
+   * The implementation used to run the search.
+   */
+  public enum Engine {
+    /**
+     * Searches over {@link Square} objects, using a {@link PriorityQueue} of
+     * nodes.
+     */
+    NODE,
+    /**
+     * Searches over cell indices, keeping all bookkeeping in primitive arrays
+     * so that nothing is allocated per expansion.
+     */
+    INDEXED,
+    /**
+     * Searches over cell indices with Jump Point Search, which only expands
+     * the squares where an optimal path may turn. The path has the same length
+     * as the A* path but may take a different route, and the explored squares
+     * are the expanded jump points plus the squares along the path.
+     */
+    JUMP_POINT,
+    /**
+     * Searches over cell indices with A* from the start and from the goal at
+     * the same time, stopping once the searches have met on a path that
+     * neither can improve on. The path has the same length as the A* path but
+     * may take a different route. The squares explored in each direction are
+     * available separately.
+     */
+    BIDIRECTIONAL
+  }
+
+  /**
+   * The open list used by the {@link Engine#INDEXED} engine.
+   */
+  public enum OpenListType {
+    /**
+     * A binary heap, with O(log n) pushes and pops.
+     */
+    BINARY_HEAP,
+    /**
+     * Buckets indexed by f score, with O(1) amortized pushes and pops. This
+     * is fastest when every step costs 1 and the heuristic is consistent, so
+     * that the f scores waiting at any time span a narrow range.
+     */
+    BUCKET
+  }
+
+  /**
+   * Why a search ended.
+   */
+  public enum Termination {
+    /**
+     * The search ran to the end: it reached the goal or found there is no
+     * path.
+     */
+    COMPLETED,
+    /**
+     * The search would have expanded more squares than
+     * {@link SolverOptions#maxExpansions} allows.
+     */
+    EXPANSION_LIMIT,
+    /**
+     * The search ran past its {@link SolverOptions#deadline}.
+     */
+    DEADLINE,
+    /**
+     * The search's {@link SolverOptions#cancellationToken} was cancelled.
+     */
+    CANCELLED
+  }
+
   private Set<Square> explored;
 
-  private List<Square> path;
+  private Set<Square> forwardExplored;
+
+  private Set<Square> backwardExplored;
+
+  // one bit per cell, set for the squares in explored
+  private long[] closed;
+
+  private boolean recordExplored;
+
+  private SquareCache squares;
+
+  private Landmarks landmarks;
+
+  // the distance from every landmark to the goal
+  private int[] goalDistances;
+
+  private Heuristic heuristic;
+
+  private EdgeCost edgeCost;
+
+  // the lowest step cost, which scales the Manhattan distance
+  private int minimumCost = 1;
+
+  private double weight;
+
+  private double suboptimalityBound = 1;
+
+  private CompactPath path;
+
+  // the grid's neighbor masks, or null while it is searched for the first time
+  private byte[][] masks;
+
+  // the path toward the goal found by a search that was stopped early
+  private CompactPath partialPath;
+
+  private SearchLimits limits;
+
+  private Termination termination = Termination.COMPLETED;
+
+  // the queued node with the lowest h, for the partial path
+  private Node nearest;
 
   private Maze maze;
+
+  private long duplicatesAvoided;
+
+  private Engine engine;
+
+  private long nodesExpanded;
+
+  private long nodesPushed;
+
+  private long maxOpenSize;
+
+  private long heuristicEvaluations;
+
+  private SearchStats stats;
+
   /**
    * Solves the given maze, determining the path to the goal.
    * 
@@ -40,28 +199,286 @@ public class Solver {
    *          The maze to be solved.
    */
   public Solver(Maze maze) {
-        this.maze = maze;
-        findOptimalPath();  
-// TODO
+    this(maze, Engine.NODE);
+  }
+
+  /**
+   * Solves the given query against the given grid, determining the path from
+   * the start to the goal.
+   * 
+   * @param grid
+   *          The squares to search and their obstacles.
+   * @param query
+   *          The start and goal squares.
+   */
+  public Solver(Grid grid, Query query) {
+    this(new Maze(grid, query));
+  }
+
+  /**
+   * Solves the given query against the given grid with the given options,
+   * determining the path from the start to the goal.
+   * 
+   * @param grid
+   *          The squares to search and their obstacles.
+   * @param query
+   *          The start and goal squares.
+   * @param options
+   *          Options controlling how the search is run.
+   */
+  public Solver(Grid grid, Query query, SolverOptions options) {
+    this(new Maze(grid, query), options);
+  }
+
+  /**
+   * Solves the given maze with the given engine, determining the path to the
+   * goal.
+   * 
+   * @param maze
+   *          The maze to be solved.
+   * @param engine
+   *          The implementation used to run the search.
+   */
+  public Solver(Maze maze, Engine engine) {
+    this(maze, new SolverOptions().engine(engine));
+  }
+
+  /**
+   * Solves the given maze with the given options, determining the path to the
+   * goal.
+   * 
+   * @param maze
+   *          The maze to be solved.
+   * @param options
+   *          Options controlling how the search is run.
+   */
+  public Solver(Maze maze, SolverOptions options) {
+    this(maze, options, new SearchBuffers());
+  }
+
+  /**
+   * Solves the given maze with the given options, running the index-based
+   * engines on the given, possibly reused, buffers.
+   */
+  Solver(Maze maze, SolverOptions options, SearchBuffers buffers) {
+    this.maze = maze;
+    this.engine = options.getEngine();
+    this.recordExplored = options.isRecordExplored();
+    SquareCache squares = options.getSquareCache();
+    if (squares != null && squares.fits(maze.getRows(), maze.getColumns())) {
+      this.squares = squares;
+    }
+    Landmarks landmarks = options.getLandmarks();
+    if (landmarks != null && landmarks.getGrid() == maze.getGrid()) {
+      this.landmarks = landmarks;
+    }
+    this.heuristic = options.getHeuristic();
+    this.edgeCost = options.getEdgeCost();
+    if (this.heuristic != null || this.edgeCost != null) {
+      if (this.engine != Engine.NODE && this.engine != Engine.INDEXED) {
+        throw new IllegalArgumentException("The " + this.engine
+            + " engine only supports the default heuristic and unit step costs");
+      }
+      if (this.edgeCost instanceof CellCosts
+          && !((CellCosts) this.edgeCost).fits(maze.getRows(), maze.getColumns())) {
+        throw new IllegalArgumentException("The cell costs do not match the size of the grid");
+      }
+      if (this.edgeCost != null) {
+        this.minimumCost = this.edgeCost.minimumCost();
+      }
+    }
+    this.weight = options.getWeight();
+    if (this.weight != 1 && this.engine != Engine.NODE && this.engine != Engine.INDEXED) {
+      throw new IllegalArgumentException("The " + this.engine + " engine does not support weights");
+    }
+    if (options.isAnytime() && this.engine != Engine.NODE) {
+      throw new IllegalArgumentException("Only the NODE engine supports anytime search");
+    }
+    List<SearchListener> listeners = options.getListeners();
+    // only pay for the clock and the allocation counter if someone is listening
+    boolean measured = !listeners.isEmpty();
+    long startNanos = 0;
+    long startBytes = 0;
+    if (measured) {
+      startBytes = SearchStats.currentThreadAllocatedBytes();
+      startNanos = System.nanoTime();
+    }
+    long deadline = 0;
+    if (options.isAnytime()) {
+      deadline = System.nanoTime() + options.getAnytimeNanos();
+    }
+    this.limits = SearchLimits.of(options, System.nanoTime());
+    if (isUnreachable(maze, options.isCheckReachability())) {
+      this.path = CompactPath.EMPTY;
+      this.explored = Collections.emptySet();
+    } else {
+      switch (this.engine) {
+      case INDEXED:
+        findOptimalPathIndexed(buffers.indexed(options.getOpenList()));
+        break;
+      case JUMP_POINT:
+        findOptimalPathJumpPoint(buffers.jumpPoint());
+        break;
+      case BIDIRECTIONAL:
+        findOptimalPathBidirectional(buffers.bidirectional());
+        break;
+      default:
+        if (options.isAnytime()) {
+          findAnytimePath(deadline, options.getWeightDecrement());
+        } else {
+          findOptimalPath();
+        }
+      }
+    }
+    if (this.limits != null) {
+      this.termination = this.limits.getTermination();
+      this.limits = null;
+    }
+    this.nearest = null;
+    if (measured) {
+      long wallNanos = System.nanoTime() - startNanos;
+      long allocatedBytes = -1;
+      if (startBytes >= 0) {
+        allocatedBytes = SearchStats.currentThreadAllocatedBytes() - startBytes;
+      }
+      this.stats = this.createStats(wallNanos, allocatedBytes);
+      for (SearchListener listener : listeners) {
+        listener.searchCompleted(maze, this.stats);
+      }
+    }
   }
- 
+
+  /**
+   * @param label
+   *          True to label the grid's connected regions if they have not been
+   *          yet, false to only use labels that already exist.
+   * @return True if the start and goal are both open but in different
+   *         connected regions of the grid. A blocked start or goal is left to
+   *         the engines.
+   */
+  private static boolean isUnreachable(Maze maze, boolean label) {
+    Grid grid = maze.getGrid();
+    if (!label && !grid.hasComponents()) {
+      return false;
+    }
+    Square start = maze.getStart();
+    Square goal = maze.getGoal();
+    return !grid.isBlocked(start) && !grid.isBlocked(goal) && !grid.isConnected(start, goal);
+  }
+
   /**
    * @return The squares along the path from the start to the goal, not
-   *         including the start square and the goal square.
+   *         including the start square and the goal square. The list is a
+   *         read-only view of the {@link #getCompactPath() compact path}.
    */
   public List<Square> getPathFromStartToGoal() {
     return this.path;
   }
 
+  /**
+   * @return The path from the start to the goal, packed two bits per step.
+   */
+  public CompactPath getCompactPath() {
+    return this.path;
+  }
+
+  /**
+   * @return Why the search ended. Unless this is
+   *         {@link Termination#COMPLETED}, a limit stopped the search early.
+   */
+  public Termination getTermination() {
+    return this.termination;
+  }
+
+  /**
+   * @return The path from the start toward the goal as far as the search got.
+   *         If the search completed, or found a path before it was stopped, this
+   *         is the {@link #getCompactPath() path}. Otherwise, it leads to the
+   *         queued square closest to the goal by h(x), the first queued if
+   *         several tie. With the {@link Engine#BIDIRECTIONAL} engine, that is
+   *         the closest square queued by the forward search, unless the two
+   *         searches have met, in which case it is the path through the square
+   *         where they met. The path is not known to be optimal.
+   */
+  public CompactPath getPartialPath() {
+    return this.partialPath != null ? this.partialPath : this.path;
+  }
+
+  /**
+   * @return A proven bound on how far from optimal the path may be: its cost
+   *         is at most this many times the cost of the cheapest path. This is
+   *         1 unless a {@link SolverOptions#weight weight} above 1 was used; a
+   *         weighted A* search is bounded by its weight, and an
+   *         {@link SolverOptions#anytime anytime} search by the bound it had
+   *         proven for its last path, which is often tighter.
+   */
+  public double getSuboptimalityBound() {
+    return this.suboptimalityBound;
+  }
+
   /**
    * @return All squares that were explored during the search process. This is
    *         always a superset of the squares returned by
-   *         {@link #getPathFromStartToGoal()}.
+   *         {@link #getPathFromStartToGoal()}, unless explored squares were not
+   *         recorded (see {@link SolverOptions#recordExplored}), in which case
+   *         it is empty. The set is a read-only view over a bitset.
    */
   public Set<Square> getExploredSquares() {
     return this.explored;
   }
 
+  /**
+   * @return The squares explored by searching forward from the start. For
+   *         every engine except {@link Engine#BIDIRECTIONAL}, these are all of
+   *         the {@link #getExploredSquares() explored squares}.
+   */
+  public Set<Square> getForwardExploredSquares() {
+    return this.forwardExplored != null ? this.forwardExplored : this.explored;
+  }
+
+  /**
+   * @return The squares explored by searching backward from the goal. This is
+   *         empty for every engine except {@link Engine#BIDIRECTIONAL}.
+   */
+  public Set<Square> getBackwardExploredSquares() {
+    return this.backwardExplored != null ? this.backwardExplored : Collections.<Square> emptySet();
+  }
+
+  /**
+   * @return The number of times the search reached a square it had not
+   *         explored yet but had already found a path to that was at least as
+   *         cheap, and so skipped the square instead of queuing it a second
+   *         time. Reaching a square by a cheaper path replaces its entry and
+   *         is not counted.
+   */
+  public long getDuplicatesAvoided() {
+    return this.duplicatesAvoided;
+  }
+
+  /**
+   * @return How the search behaved. The wall time and allocated bytes are only
+   *         measured if a {@link SearchListener} was registered with the
+   *         options the solver was created with.
+   */
+  public SearchStats getStats() {
+    if (this.stats == null) {
+      this.stats = this.createStats(-1, -1);
+    }
+    return this.stats;
+  }
+
+  private SearchStats createStats(long wallNanos, long allocatedBytes) {
+    return new SearchStats(
+        this.engine,
+        this.nodesExpanded,
+        this.nodesPushed,
+        this.maxOpenSize,
+        this.duplicatesAvoided,
+        this.heuristicEvaluations,
+        wallNanos,
+        allocatedBytes);
+  }
+
    /**
    * Finds the neighboring square that is not blocked and has not been 
    * explored.
@@ -73,24 +490,28 @@ public class Solver {
    */
   public List<Square> getNeighbor(Square sq)
   {
-        List<Square> neighbours = new ArrayList<>();
+        List<Square> neighbours = new ArrayList<>(4);
         int row = sq.getRow();
         int col = sq.getColumn();
-        //possible neighbors are up, down, left and right square of current square
-        Square up = new Square(row-1, col);
-        Square down = new Square(row+1, col);
-        Square right = new Square(row, col+1);
-        Square left = new Square(row, col-1);
+        int rows = maze.getRows();
+        int columns = maze.getColumns();
+        //possible neighbors are up, down, left and right square of current square,
+        //and the grid knows which of them are open with a single array read
+        //once it has been searched before
+        int open = 0;
+        if (row >= 0 && row < rows && col >= 0 && col < columns)
+            open = masks != null ? Grid.mask(masks, row * columns + col) : maze.getGrid().neighborMask(row, col);
         
-        //check if neighbors are blocked/explored or not
-        if (!maze.isBlocked(up) && !explored.contains(up))
-            neighbours.add(up);
-        if (!maze.isBlocked(down) && !explored.contains(down))
-            neighbours.add(down);
-        if (!maze.isBlocked(left) && !explored.contains(left))
-            neighbours.add(left);
-        if (!maze.isBlocked(right) && !explored.contains(right))
-            neighbours.add(right);
+        //check if neighbors are explored or not
+        int cell = row * columns + col;
+        if ((open & Grid.UP) != 0 && !isClosed(cell - columns))
+            neighbours.add(square(row-1, col));
+        if ((open & Grid.DOWN) != 0 && !isClosed(cell + columns))
+            neighbours.add(square(row+1, col));
+        if ((open & Grid.LEFT) != 0 && !isClosed(cell - 1))
+            neighbours.add(square(row, col-1));
+        if ((open & Grid.RIGHT) != 0 && !isClosed(cell + 1))
+            neighbours.add(square(row, col+1));
       
       return neighbours;
   }
@@ -98,37 +519,61 @@ public class Solver {
  * Finds the best path from start to goal square in maze using A* search
  */
     private void findOptimalPath() {
-        explored = new HashSet<>();
+        //the closed check is a bit test, so it is kept whether or not the
+        //explored squares are handed out afterwards
+        closed = CellSet.bits(maze.getRows(), maze.getColumns());
+        explored = exploredView(closed);
+        masks = maze.getGrid().searchMasks();
+        if (landmarks != null)
+            goalDistances = landmarks.distancesTo(cell(maze.getGoal()));
         //initialize gx = 0 and hx for the start square
         int gx = 0;
         int hx = calculateManHattamDistance(maze.getStart());
         List<Square> branchSquareList = new ArrayList<>();
         //create start node
         Node n = new Node(maze.getStart(),null, hx, gx);
-        PriorityQueue pq = new PriorityQueue();
+        n.fx = gx + weigh(hx, weight);
+        suboptimalityBound = weight;
+        PriorityQueue<Node> pq = new PriorityQueue<>();
+        //index of the nodes currently waiting in the priority queue, by square
+        Map<Square, Node> open = new HashMap<>();
+        duplicatesAvoided = 0;
         //add start node in priority queue
         pq.add(n);
+        open.put(n.sq, n);
+        nearest = n;
+        nodesPushed = 1;
+        maxOpenSize = 1;
         
         while(true)
         {
             //fetch node from priority queue
-            Node pop = (Node) pq.poll();
+            Node pop = pq.poll();
+            //the start's region was used up without reaching the goal
+            if (pop == null)
+            {
+                path = CompactPath.EMPTY;
+                break;
+            }
+            //skip entries that were replaced by a cheaper path to the same square
+            if (pop.stale)
+                continue;
+            //a limit stopped the search before the goal was reached
+            if (limits != null && limits.stop())
+            {
+                path = CompactPath.EMPTY;
+                partialPath = pathTo(nearest);
+                break;
+            }
+            open.remove(pop.sq);
             //add the fetched node in explored list
-            explored.add(pop.sq);
+            CellSet.add(closed, cell(pop.sq));
+            ++nodesExpanded;
                 
             //if fetched node is goal, track the parent node until you get the path from goal to start node 
             if(maze.getGoal().equals(pop.sq))
             {
-                path = new ArrayList<>();
-                path.add(pop.sq);
-                Node par = pop.parentNode;
-                while(par!= null)
-                {
-                    path.add(par.sq);
-                    par = par.parentNode;
-                }
-                //reverse the path to get path from start to goal
-                Collections.reverse(path);
+                path = pathTo(pop);
                 break;
             }
             //if current node is not goal node
@@ -136,26 +581,392 @@ public class Solver {
             {
                 //get the neighbors 
                 branchSquareList = getNeighbor(pop.sq);
-                gx = pop.gx+1;
                 //for each neighbors calculate cost function and add it to a priority queue
                 for(Square sqr: branchSquareList)
                 {
+                    gx = pop.gx + calculateStepCost(pop.sq, sqr);
+                    //if the square is already queued, keep the cheaper entry
+                    Node queued = open.get(sqr);
+                    if (queued != null)
+                    {
+                        if (queued.gx <= gx)
+                        {
+                            ++duplicatesAvoided;
+                            continue;
+                        }
+                        queued.stale = true;
+                    }
                     hx = calculateManHattamDistance(sqr);
                     Node m = new Node(sqr, pop, hx, gx);
+                    m.fx = gx + weigh(hx, weight);
                     pq.add(m);
+                    open.put(sqr, m);
+                    if (hx < nearest.hx || queued == nearest)
+                        nearest = m;
+                    ++nodesPushed;
+                    maxOpenSize = Math.max(maxOpenSize, pq.size());
                 }
             }
             
         }
      }
+    /**
+     * 
+     * @param goal Node reached at the end of the path
+     * @return The path from the start to the node
+     */
+    private CompactPath pathTo(Node goal) {
+        //count the steps, which are not gx if steps have costs, so
+        //that each step's direction can be written in place while
+        //walking back, with no reversal
+        int length = 0;
+        for (Node node = goal; node != null; node = node.parentNode)
+            ++length;
+        long[] directions = CompactPath.directions(length);
+        Node node = goal;
+        for (int step = length - 2; step >= 0; --step)
+        {
+            Node par = node.parentNode;
+            int dRow = node.sq.getRow() - par.sq.getRow();
+            int dColumn = node.sq.getColumn() - par.sq.getColumn();
+            CompactPath.setDirection(directions, step, CompactPath.direction(dRow, dColumn));
+            node = par;
+        }
+        return new CompactPath(node.sq.getRow(), node.sq.getColumn(), length, directions);
+    }
+    /**
+     * Finds a path with anytime repairing A* (ARA*, Likhachev et al.). A
+     * weighted search finds a first path; then, while time remains, the
+     * weight is lowered and the search resumed from the squares it left open
+     * plus the explored squares whose g improved after they were expanded,
+     * so that each repair only revisits squares whose cost went down.
+     * 
+     * @param deadline System.nanoTime() after which no repair is run
+     * @param decrement How much the weight is lowered between repairs
+     */
+    private void findAnytimePath(long deadline, double decrement) {
+        long[] expanded = CellSet.bits(maze.getRows(), maze.getColumns());
+        explored = exploredView(expanded);
+        masks = maze.getGrid().searchMasks();
+        if (landmarks != null)
+            goalDistances = landmarks.distancesTo(cell(maze.getGoal()));
+        //the node holding the best g found so far, by square
+        Map<Square, Node> best = new HashMap<>();
+        //explored squares whose g improved, waiting for the next repair
+        List<Node> inconsistent = new ArrayList<>();
+        PriorityQueue<Node> pq = new PriorityQueue<>();
+        double epsilon = weight;
+        int hx = calculateManHattamDistance(maze.getStart());
+        Node n = new Node(maze.getStart(), null, hx, 0);
+        n.fx = weigh(hx, epsilon);
+        pq.add(n);
+        best.put(n.sq, n);
+        nearest = n;
+        nodesPushed = 1;
+        maxOpenSize = 1;
+        path = CompactPath.EMPTY;
+        //the first path is found however long it takes
+        long limit = Long.MAX_VALUE;
+        while (true)
+        {
+            closed = CellSet.bits(maze.getRows(), maze.getColumns());
+            if (!improvePath(pq, best, inconsistent, expanded, epsilon, limit))
+            {
+                //a limit stopped the first search; a repair keeps its last path
+                if (path == CompactPath.EMPTY)
+                    partialPath = pathTo(nearest);
+                break;
+            }
+            Node goal = best.get(maze.getGoal());
+            if (goal == null)
+            {
+                //the start's region was used up without reaching the goal
+                suboptimalityBound = 1;
+                break;
+            }
+            path = pathTo(goal);
+            //no waiting square can lead to a path cheaper than its g + h
+            long lowest = Long.MAX_VALUE;
+            for (Node node : pq)
+            {
+                if (!node.stale)
+                    lowest = Math.min(lowest, (long) node.gx + node.hx);
+            }
+            for (Node node : inconsistent)
+            {
+                if (!node.stale)
+                    lowest = Math.min(lowest, (long) node.gx + node.hx);
+            }
+            double ratio = goal.gx <= lowest ? 1 : goal.gx / (double) lowest;
+            suboptimalityBound = Math.max(1, Math.min(epsilon, ratio));
+            if (suboptimalityBound == 1 || System.nanoTime() - deadline >= 0)
+                break;
+            epsilon = Math.max(1, epsilon - decrement);
+            //requeue the open and inconsistent squares under the new weight
+            PriorityQueue<Node> next = new PriorityQueue<>();
+            for (Node node : pq)
+            {
+                if (!node.stale)
+                {
+                    node.fx = node.gx + weigh(node.hx, epsilon);
+                    next.add(node);
+                }
+            }
+            for (Node node : inconsistent)
+            {
+                if (!node.stale)
+                {
+                    node.fx = node.gx + weigh(node.hx, epsilon);
+                    next.add(node);
+                    ++nodesPushed;
+                }
+            }
+            inconsistent.clear();
+            pq = next;
+            maxOpenSize = Math.max(maxOpenSize, pq.size());
+            limit = deadline;
+        }
+    }
+    /**
+     * Expands squares until the goal's f is no larger than any waiting f.
+     * 
+     * @return False if the deadline passed or a limit stopped the search first
+     */
+    private boolean improvePath(PriorityQueue<Node> pq, Map<Square, Node> best, List<Node> inconsistent,
+            long[] expanded, double epsilon, long deadline) {
+        Square goalSq = maze.getGoal();
+        Grid grid = maze.getGrid();
+        int columns = maze.getColumns();
+        int polls = 0;
+        while (true)
+        {
+            Node pop = pq.peek();
+            if (pop == null)
+                return true;
+            if (pop.stale)
+            {
+                pq.poll();
+                continue;
+            }
+            Node goal = best.get(goalSq);
+            if (goal != null && goal.fx <= pop.fx)
+                return true;
+            //reading the clock is cheap, but not free
+            if (deadline != Long.MAX_VALUE && (++polls & 1023) == 0 && System.nanoTime() - deadline >= 0)
+                return false;
+            if (limits != null && limits.stop())
+                return false;
+            pq.poll();
+            int cell = cell(pop.sq);
+            CellSet.add(closed, cell);
+            CellSet.add(expanded, cell);
+            ++nodesExpanded;
+            int row = pop.sq.getRow();
+            int col = pop.sq.getColumn();
+            int open = masks != null ? Grid.mask(masks, cell) : grid.neighborMask(row, col);
+            for (int direction = 0; direction < 4; ++direction)
+            {
+                if ((open & (1 << direction)) == 0)
+                    continue;
+                int nextRow = row;
+                int nextCol = col;
+                if (direction == IndexedAStar.UP)
+                    --nextRow;
+                else if (direction == IndexedAStar.DOWN)
+                    ++nextRow;
+                else if (direction == IndexedAStar.LEFT)
+                    --nextCol;
+                else
+                    ++nextCol;
+                Square sqr = square(nextRow, nextCol);
+                int gx = pop.gx + calculateStepCost(pop.sq, sqr);
+                Node old = best.get(sqr);
+                if (old != null)
+                {
+                    //counted as in findOptimalPath, which never looks at
+                    //squares explored by the current search
+                    if (old.gx <= gx)
+                    {
+                        if (!isClosed(nextRow * columns + nextCol))
+                            ++duplicatesAvoided;
+                        continue;
+                    }
+                    old.stale = true;
+                }
+                int hx = old != null ? old.hx : calculateManHattamDistance(sqr);
+                Node m = new Node(sqr, pop, hx, gx);
+                m.fx = gx + weigh(hx, epsilon);
+                best.put(sqr, m);
+                if (hx < nearest.hx || old == nearest)
+                    nearest = m;
+                //an explored square waits for the next repair
+                if (isClosed(nextRow * columns + nextCol))
+                    inconsistent.add(m);
+                else
+                {
+                    pq.add(m);
+                    ++nodesPushed;
+                    maxOpenSize = Math.max(maxOpenSize, pq.size());
+                }
+            }
+        }
+    }
+    /**
+     * 
+     * @param hx Heuristic of a square
+     * @param epsilon Weight of the heuristic
+     * @return The weighted heuristic, rounded down so that the weight stays
+     *         an upper bound on the path's suboptimality
+     */
+    private static int weigh(int hx, double epsilon) {
+        return epsilon == 1 ? hx : (int) (hx * epsilon);
+    }
+    /**
+     * Finds the best path from start to goal square in maze using the
+     * {@link IndexedAStar} engine, converting its cell indices back to squares.
+     */
+    private void findOptimalPathIndexed(IndexedAStar search) {
+        search.search(maze, landmarks, heuristic, edgeCost, weight, limits);
+        suboptimalityBound = weight;
+        duplicatesAvoided = search.duplicatesAvoided();
+        nodesExpanded = search.closedCount();
+        nodesPushed = search.pushedCount();
+        maxOpenSize = search.maxOpenSize();
+        heuristicEvaluations = search.heuristicEvaluations();
+        path = CompactPath.ofCells(search.path(), maze.getColumns());
+        if (isStopped())
+            partialPath = CompactPath.ofCells(search.nearestPath(), maze.getColumns());
+        explored = toSquareSet(search.closedCells(), search.closedCount(), null);
+    }
+    /**
+     * Finds the best path from start to goal square in maze using
+     * {@link JumpPointSearch}. The squares along the path are counted as
+     * explored, so that the explored squares remain a superset of the path.
+     */
+    private void findOptimalPathJumpPoint(JumpPointSearch search) {
+        search.search(maze, limits);
+        nodesExpanded = search.closedCount();
+        nodesPushed = search.pushedCount();
+        maxOpenSize = search.maxOpenSize();
+        heuristicEvaluations = search.heuristicEvaluations();
+        int[] cells = search.path();
+        path = CompactPath.ofCells(cells, maze.getColumns());
+        if (isStopped())
+            partialPath = CompactPath.ofCells(search.nearestPath(), maze.getColumns());
+        explored = toSquareSet(search.closedCells(), search.closedCount(), cells);
+    }
+    /**
+     * Finds the best path from start to goal square in maze using
+     * {@link BidirectionalAStar}, keeping the squares explored in each
+     * direction separately. The square where the searches met may not have
+     * been expanded by either, so the path is added to the explored squares.
+     */
+    private void findOptimalPathBidirectional(BidirectionalAStar search) {
+        boolean finished = search.search(maze, limits);
+        BidirectionalAStar.Side forward = search.forward();
+        BidirectionalAStar.Side backward = search.backward();
+        nodesExpanded = forward.closedCount() + backward.closedCount();
+        nodesPushed = search.pushedCount();
+        maxOpenSize = search.maxOpenSize();
+        heuristicEvaluations = search.heuristicEvaluations();
+        int[] cells = search.path();
+        path = CompactPath.ofCells(cells, maze.getColumns());
+        //a path through the meeting square is not known to be optimal until
+        //the searches finish
+        if (!finished) {
+            partialPath = CompactPath.ofCells(search.nearestPath(), maze.getColumns());
+            path = CompactPath.EMPTY;
+        }
+        forwardExplored = toSquareSet(forward.closedCells(), forward.closedCount(), null);
+        backwardExplored = toSquareSet(backward.closedCells(), backward.closedCount(), null);
+        if (recordExplored) {
+            closed = CellSet.bits(maze.getRows(), maze.getColumns());
+            CellSet.addAll(closed, forward.closedCells(), forward.closedCount());
+            CellSet.addAll(closed, backward.closedCells(), backward.closedCount());
+            CellSet.addAll(closed, cells, cells.length);
+        }
+        explored = exploredView(closed);
+    }
+    /**
+     * @return True if a limit stopped the search early
+     */
+    private boolean isStopped() {
+        return limits != null && limits.getTermination() != Termination.COMPLETED;
+    }
+    /**
+     * Converts the first count cell indices produced by an index-based engine,
+     * plus any extra cells, to a set of squares. Unless explored squares are
+     * not being recorded, the cells also become the closed bitset.
+     */
+    private Set<Square> toSquareSet(int[] cells, int count, int[] extra) {
+        if (!recordExplored) {
+            return Collections.emptySet();
+        }
+        closed = CellSet.bits(maze.getRows(), maze.getColumns());
+        CellSet.addAll(closed, cells, count);
+        if (extra != null) {
+            CellSet.addAll(closed, extra, extra.length);
+        }
+        return new CellSet(closed, maze.getRows(), maze.getColumns());
+    }
+    /**
+     * Wraps a closed bitset as the explored squares, unless explored squares
+     * are not being recorded.
+     */
+    private Set<Square> exploredView(long[] bits) {
+        if (!recordExplored || bits == null) {
+            return Collections.emptySet();
+        }
+        return new CellSet(bits, maze.getRows(), maze.getColumns());
+    }
+    /**
+     * @return True if the given cell, which must be within the maze, was
+     *         explored by the search.
+     */
+    private boolean isClosed(int cell) {
+        return closed != null && CellSet.contains(closed, cell);
+    }
+    /**
+     * @return The square at the given row and column, from the square cache
+     *         if there is one.
+     */
+    private Square square(int row, int col) {
+        return squares != null ? squares.get(row, col) : new Square(row, col);
+    }
+    private int cell(Square sq) {
+        return sq.getRow() * maze.getColumns() + sq.getColumn();
+    }
     /**
      * 
      * @param sq Square
-     * @return ManhattamDistance from current square 'sq' to goal square
+     * @return ManhattamDistance from current square 'sq' to goal square,
+     *         scaled by the lowest step cost, or the estimate of the
+     *         configured heuristic; raised to the landmarks' bound if there
+     *         are landmarks and it is larger
      */
     private int calculateManHattamDistance(Square sq) {
+        ++heuristicEvaluations;
         Square goal = maze.getGoal();
-        return (Math.abs(sq.getRow()-goal.getRow())+Math.abs(sq.getColumn()-goal.getColumn()));
+        int distance;
+        //the default is inlined, so it costs no interface call
+        if (heuristic == null)
+            distance = (Math.abs(sq.getRow()-goal.getRow())+Math.abs(sq.getColumn()-goal.getColumn())) * minimumCost;
+        else
+            distance = heuristic.estimate(sq.getRow(), sq.getColumn(), goal.getRow(), goal.getColumn());
+        if (landmarks != null)
+            distance = Math.max(distance, landmarks.lowerBound(cell(sq), goalDistances) * minimumCost);
+        return distance;
+    }
+    /**
+     * 
+     * @param from Square being expanded
+     * @param to Neighboring square
+     * @return The cost of the step, 1 unless an edge cost is configured
+     */
+    private int calculateStepCost(Square from, Square to) {
+        if (edgeCost == null)
+            return 1;
+        return edgeCost.cost(cell(from), cell(to));
     }
 
 /*
@@ -204,12 +1015,16 @@ public class Solver {
    * @param maze
    *          The maze to be solved.
    */
-  static class Node implements Comparable
+  static class Node implements Comparable<Node>
     {
         Square sq;
         int hx;
         int gx;
         Node parentNode;
+        //the priority, gx + hx unless the heuristic is weighted
+        int fx;
+        //set when a cheaper path to the same square has been queued
+        boolean stale;
         /**
          * 
          * @param sq Square
@@ -223,21 +1038,21 @@ public class Solver {
             this.sq = sq;
             this.hx = hx;
             this.gx = gx;
+            this.fx = gx + hx;
             this.parentNode = parentNode;
             
         }
         /**
          * Orders the node in queue on the basis of its cost function
          * 
-         * @param o
+         * @param that
          * @return 
          */
                   
         @Override
-        public int compareTo(Object o) {
-            Node that = (Node)o;
-            int f1 = this.gx + this.hx;
-            int f2 = that.gx + that.hx;
+        public int compareTo(Node that) {
+            int f1 = this.fx;
+            int f2 = that.fx;
             
             if (f1>f2)
                 return 1;
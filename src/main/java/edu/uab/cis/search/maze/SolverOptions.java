@@ -0,0 +1,390 @@
+package edu.uab.cis.search.maze;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options controlling how a {@link Solver} runs its search. The defaults
+ * reproduce {@link Solver#Solver(Maze)}.
+ */
+public class SolverOptions {
+
+  private Solver.Engine engine = Solver.Engine.NODE;
+
+  private Solver.OpenListType openList = Solver.OpenListType.BINARY_HEAP;
+
+  private boolean recordExplored = true;
+
+  private boolean checkReachability;
+
+  private SquareCache squareCache;
+
+  private Landmarks landmarks;
+
+  private Heuristic heuristic;
+
+  private EdgeCost edgeCost;
+
+  private double weight = 1;
+
+  private long anytimeNanos = -1;
+
+  private double weightDecrement = 0.5;
+
+  private long deadlineNanos = -1;
+
+  private long maxExpansions = Long.MAX_VALUE;
+
+  private CancellationToken cancellationToken;
+
+  private List<SearchListener> listeners = Collections.emptyList();
+
+  /**
+   * @param engine
+   *          The implementation used to run the search.
+   * @return These options.
+   */
+  public SolverOptions engine(Solver.Engine engine) {
+    this.engine = engine;
+    return this;
+  }
+
+  /**
+   * @param openList
+   *          The open list used by the {@link Solver.Engine#INDEXED} engine.
+   *          The {@link Solver.Engine#NODE} engine always uses a
+   *          {@link java.util.PriorityQueue}.
+   * @return These options.
+   */
+  public SolverOptions openList(Solver.OpenListType openList) {
+    this.openList = openList;
+    return this;
+  }
+
+  /**
+   * @param recordExplored
+   *          False if only the path is needed. The index-based engines then
+   *          skip building the set of explored squares, and
+   *          {@link Solver#getExploredSquares()} is empty for every engine.
+   * @return These options.
+   */
+  public SolverOptions recordExplored(boolean recordExplored) {
+    this.recordExplored = recordExplored;
+    return this;
+  }
+
+  /**
+   * @param checkReachability
+   *          True to look up whether the start and goal are in the same
+   *          connected region of the grid before searching, and if not to
+   *          return an empty path without searching at all. The regions are
+   *          labeled once per grid lineage, the first time they are needed,
+   *          which takes a pass over the grid and an {@code int} per square,
+   *          so this pays off for grids that are queried many times. False,
+   *          the default, only uses labels the grid already has; without
+   *          them, every engine finds out by exhausting the start's region.
+   * @return These options.
+   */
+  public SolverOptions checkReachability(boolean checkReachability) {
+    this.checkReachability = checkReachability;
+    return this;
+  }
+
+  /**
+   * @param squareCache
+   *          Canonical squares for the grid being searched, so that the
+   *          {@link Solver.Engine#NODE} engine reuses them instead of creating
+   *          new squares for every neighbor it looks at, or null to always
+   *          create new squares. A cache for a grid of a different size is
+   *          ignored.
+   * @return These options.
+   */
+  public SolverOptions squareCache(SquareCache squareCache) {
+    this.squareCache = squareCache;
+    return this;
+  }
+
+  /**
+   * @param landmarks
+   *          Landmarks whose triangle inequality bounds raise the Manhattan
+   *          heuristic of the {@link Solver.Engine#NODE} and
+   *          {@link Solver.Engine#INDEXED} engines, or null for the Manhattan
+   *          distance alone. The other engines always use the Manhattan
+   *          distance. Landmarks computed for a different grid than the one
+   *          being searched are ignored.
+   * @return These options.
+   */
+  public SolverOptions landmarks(Landmarks landmarks) {
+    this.landmarks = landmarks;
+    return this;
+  }
+
+  /**
+   * @param heuristic
+   *          The heuristic used by the {@link Solver.Engine#NODE} and
+   *          {@link Solver.Engine#INDEXED} engines, or null for the Manhattan
+   *          distance. The other engines only support the Manhattan distance,
+   *          and reject any other heuristic.
+   * @return These options.
+   */
+  public SolverOptions heuristic(Heuristic heuristic) {
+    this.heuristic = heuristic;
+    return this;
+  }
+
+  /**
+   * @param edgeCost
+   *          The cost of each step for the {@link Solver.Engine#NODE} and
+   *          {@link Solver.Engine#INDEXED} engines, e.g. {@link CellCosts}, or
+   *          null if every step costs 1. The other engines only support unit
+   *          costs, and reject any edge cost.
+   * @return These options.
+   */
+  public SolverOptions edgeCost(EdgeCost edgeCost) {
+    this.edgeCost = edgeCost;
+    return this;
+  }
+
+  /**
+   * Trades path quality for speed with weighted A*, which orders squares by
+   * g(x) + w * h(x) instead of g(x) + h(x). The larger the weight, the more
+   * greedily the search heads for the goal and the fewer squares it explores,
+   * but the path may then cost up to w times the optimal cost (see
+   * {@link Solver#getSuboptimalityBound()}).
+   * 
+   * @param weight
+   *          The weight w, at least 1. A weight of 1, the default, gives
+   *          optimal paths. Only the {@link Solver.Engine#NODE} and
+   *          {@link Solver.Engine#INDEXED} engines support other weights.
+   * @return These options.
+   */
+  public SolverOptions weight(double weight) {
+    if (!(weight >= 1)) {
+      throw new IllegalArgumentException("Weight must be at least 1: " + weight);
+    }
+    this.weight = weight;
+    return this;
+  }
+
+  /**
+   * Makes the {@link Solver.Engine#NODE} engine an anytime search, with
+   * anytime repairing A* (ARA*). A path is first found with the
+   * {@link #weight(double) weight}; then, until the time is up or the path is
+   * known to be optimal, the weight is lowered by the
+   * {@link #weightDecrement(double) decrement} and the path improved, reusing
+   * the work of the earlier searches. The first path is always found, however
+   * long it takes; only the improvements stop at the deadline.
+   * 
+   * @param timeout
+   *          The time from the start of the search after which no further
+   *          improvements are started, and an improvement under way is
+   *          abandoned in favor of the last path found.
+   * @param unit
+   *          The unit of the timeout.
+   * @return These options.
+   */
+  public SolverOptions anytime(long timeout, TimeUnit unit) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Timeout must not be negative: " + timeout);
+    }
+    this.anytimeNanos = unit.toNanos(timeout);
+    return this;
+  }
+
+  /**
+   * @param weightDecrement
+   *          How much an {@link #anytime anytime} search lowers the weight
+   *          between one path and the next, more than 0. The default is 0.5.
+   *          Smaller steps give more, smaller improvements.
+   * @return These options.
+   */
+  public SolverOptions weightDecrement(double weightDecrement) {
+    if (!(weightDecrement > 0)) {
+      throw new IllegalArgumentException("Weight decrement must be positive: " + weightDecrement);
+    }
+    this.weightDecrement = weightDecrement;
+    return this;
+  }
+
+  /**
+   * Stops every search that runs longer than the given time, with
+   * {@link Solver.Termination#DEADLINE}. The clock is only read every so
+   * many expansions, so a search may overrun the deadline slightly.
+   * 
+   * @param timeout
+   *          The time from the start of each search after which it stops.
+   * @param unit
+   *          The unit of the timeout.
+   * @return These options.
+   */
+  public SolverOptions deadline(long timeout, TimeUnit unit) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Timeout must not be negative: " + timeout);
+    }
+    this.deadlineNanos = unit.toNanos(timeout);
+    return this;
+  }
+
+  /**
+   * Stops every search that would expand more than the given number of
+   * squares, with {@link Solver.Termination#EXPANSION_LIMIT}.
+   * 
+   * @param maxExpansions
+   *          The most squares a search may expand, at least 0, or
+   *          {@link Long#MAX_VALUE} for no limit, the default.
+   * @return These options.
+   */
+  public SolverOptions maxExpansions(long maxExpansions) {
+    if (maxExpansions < 0) {
+      throw new IllegalArgumentException("Expansion limit must not be negative: " + maxExpansions);
+    }
+    this.maxExpansions = maxExpansions;
+    return this;
+  }
+
+  /**
+   * @param cancellationToken
+   *          A token that stops every search once it is cancelled, with
+   *          {@link Solver.Termination#CANCELLED}, or null.
+   * @return These options.
+   */
+  public SolverOptions cancellationToken(CancellationToken cancellationToken) {
+    this.cancellationToken = cancellationToken;
+    return this;
+  }
+
+  /**
+   * Registers a listener to be told how every search run with these options
+   * behaved. While no listener is registered, searches do not read the clock
+   * or the allocation counters at all.
+   * 
+   * @param listener
+   *          The listener to add.
+   * @return These options.
+   */
+  public SolverOptions listener(SearchListener listener) {
+    List<SearchListener> listeners = new ArrayList<>(this.listeners);
+    listeners.add(listener);
+    this.listeners = Collections.unmodifiableList(listeners);
+    return this;
+  }
+
+  /**
+   * @return The implementation used to run the search.
+   */
+  public Solver.Engine getEngine() {
+    return this.engine;
+  }
+
+  /**
+   * @return The open list used by the {@link Solver.Engine#INDEXED} engine.
+   */
+  public Solver.OpenListType getOpenList() {
+    return this.openList;
+  }
+
+  /**
+   * @return True if the squares explored by the search are recorded.
+   */
+  public boolean isRecordExplored() {
+    return this.recordExplored;
+  }
+
+  /**
+   * @return True if unreachable goals are rejected before searching.
+   */
+  public boolean isCheckReachability() {
+    return this.checkReachability;
+  }
+
+  /**
+   * @return The canonical squares used by the {@link Solver.Engine#NODE}
+   *         engine, or null if it creates new squares.
+   */
+  public SquareCache getSquareCache() {
+    return this.squareCache;
+  }
+
+  /**
+   * @return The landmarks used to raise the heuristic, or null if there are
+   *         none.
+   */
+  public Landmarks getLandmarks() {
+    return this.landmarks;
+  }
+
+  /**
+   * @return The heuristic, or null for the Manhattan distance.
+   */
+  public Heuristic getHeuristic() {
+    return this.heuristic;
+  }
+
+  /**
+   * @return The cost of each step, or null if every step costs 1.
+   */
+  public EdgeCost getEdgeCost() {
+    return this.edgeCost;
+  }
+
+  /**
+   * @return The weight of the heuristic, 1 for optimal paths.
+   */
+  public double getWeight() {
+    return this.weight;
+  }
+
+  /**
+   * @return True if the search is an anytime search.
+   */
+  public boolean isAnytime() {
+    return this.anytimeNanos >= 0;
+  }
+
+  /**
+   * @return The time, in nanoseconds, an anytime search spends improving its
+   *         path, or -1 if the search is not an anytime search.
+   */
+  public long getAnytimeNanos() {
+    return this.anytimeNanos;
+  }
+
+  /**
+   * @return How much an anytime search lowers the weight between paths.
+   */
+  public double getWeightDecrement() {
+    return this.weightDecrement;
+  }
+
+  /**
+   * @return The time, in nanoseconds, after which a search stops, or -1 if
+   *         there is no deadline.
+   */
+  public long getDeadlineNanos() {
+    return this.deadlineNanos;
+  }
+
+  /**
+   * @return The most squares a search may expand, or {@link Long#MAX_VALUE}
+   *         if there is no limit.
+   */
+  public long getMaxExpansions() {
+    return this.maxExpansions;
+  }
+
+  /**
+   * @return The token that stops searches once cancelled, or null.
+   */
+  public CancellationToken getCancellationToken() {
+    return this.cancellationToken;
+  }
+
+  /**
+   * @return The listeners told about every search, in registration order.
+   */
+  public List<SearchListener> getListeners() {
+    return this.listeners;
+  }
+}
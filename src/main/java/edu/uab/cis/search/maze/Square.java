@@ -1,13 +1,11 @@
 package edu.uab.cis.search.maze;
 
-import java.util.Objects;
-
 /**
  * A square in a maze, identified by a row and a column.
  */
 public class Square {
 
-  private int row, column;
+  private final int row, column;
 
   /**
    * Identifies a square on the maze via the given row and column.
@@ -37,9 +35,21 @@ public class Square {
     return this.column;
   }
 
+  /**
+   * Hashes the row and column without allocating. The row is spread by a
+   * multiplicative constant before the column is added, and the result goes
+   * through the MurmurHash3 finalizer, so that neighboring squares land in
+   * unrelated hash buckets.
+   */
   @Override
   public int hashCode() {
-    return Objects.hash(this.row, this.column);
+    int hash = this.row * 0x9E3779B9 + this.column;
+    hash ^= hash >>> 16;
+    hash *= 0x85EBCA6B;
+    hash ^= hash >>> 13;
+    hash *= 0xC2B2AE35;
+    hash ^= hash >>> 16;
+    return hash;
   }
 
   @Override
@@ -0,0 +1,86 @@
+package edu.uab.cis.search.maze;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Hands out one canonical {@link Square} per cell of a grid, so that code
+ * which creates squares for the same cells over and over, such as repeated
+ * searches of the same grid, stops allocating once every cell it touches has
+ * been created.
+ *
+ * The cache holds one reference per cell of the grid, created lazily, so it is
+ * meant for grids that are searched many times. Squares outside the grid are
+ * not cached, and a new instance is returned for each request. The cache is
+ * thread-safe, and the instance for a cell is the same for every thread.
+ */
+public class SquareCache {
+
+  private final int rows;
+  private final int columns;
+  private final AtomicReferenceArray<Square> squares;
+
+  /**
+   * Creates an empty cache for squares within the given grid.
+   */
+  public SquareCache(Grid grid) {
+    this(grid.getRows(), grid.getColumns());
+  }
+
+  /**
+   * Creates an empty cache for squares within a grid of the given size.
+   */
+  public SquareCache(int rows, int columns) {
+    Grid.words(rows, columns); // validates the size
+    this.rows = rows;
+    this.columns = columns;
+    this.squares = new AtomicReferenceArray<>(rows * columns);
+  }
+
+  /**
+   * @return The canonical square at the given row and column, or a new square
+   *         if it is outside the grid.
+   */
+  public Square get(int row, int column) {
+    if (row < 0 || row >= this.rows || column < 0 || column >= this.columns) {
+      return new Square(row, column);
+    }
+    int cell = row * this.columns + column;
+    Square square = this.squares.get(cell);
+    if (square == null) {
+      square = new Square(row, column);
+      if (!this.squares.compareAndSet(cell, null, square)) {
+        // another thread got there first
+        square = this.squares.get(cell);
+      }
+    }
+    return square;
+  }
+
+  /**
+   * @return The canonical square equal to the given one, or the given square
+   *         itself if it is outside the grid.
+   */
+  public Square get(Square square) {
+    int row = square.getRow();
+    int column = square.getColumn();
+    if (row < 0 || row >= this.rows || column < 0 || column >= this.columns) {
+      return square;
+    }
+    int cell = row * this.columns + column;
+    Square canonical = this.squares.get(cell);
+    if (canonical == null) {
+      if (this.squares.compareAndSet(cell, null, square)) {
+        return square;
+      }
+      canonical = this.squares.get(cell);
+    }
+    return canonical;
+  }
+
+  /**
+   * @return True if the cache covers a grid of the given size.
+   */
+  boolean fits(int rows, int columns) {
+    return this.rows == rows && this.columns == columns;
+  }
+}
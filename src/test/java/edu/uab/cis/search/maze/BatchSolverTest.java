@@ -0,0 +1,109 @@
+package edu.uab.cis.search.maze;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+public class BatchSolverTest {
+
+  @Test(timeout = 10000)
+  public void testMatchesSequentialSolver() throws Exception {
+    Random random = new Random(3);
+    Maze maze = null;
+    while (maze == null) {
+      maze = SolverTest.randomMaze(random, 30, 40, 0.25);
+    }
+    List<Query> queries = new ArrayList<>();
+    while (queries.size() < 200) {
+      Square start = new Square(random.nextInt(30), random.nextInt(40));
+      Square goal = new Square(random.nextInt(30), random.nextInt(40));
+      if (!maze.isBlocked(start) && !maze.isBlocked(goal)) {
+        queries.add(new Query(start, goal));
+      }
+    }
+    for (Solver.Engine engine : new Solver.Engine[] { Solver.Engine.INDEXED, Solver.Engine.JUMP_POINT,
+        Solver.Engine.BIDIRECTIONAL }) {
+      SolverOptions options = new SolverOptions().engine(engine);
+      ForkJoinPool pool = new ForkJoinPool(4);
+      try {
+        CompletionService<BatchSolver.Result> results = new BatchSolver(maze, options, pool).submit(queries);
+        boolean[] seen = new boolean[queries.size()];
+        for (int i = 0; i < queries.size(); ++i) {
+          BatchSolver.Result result = results.take().get();
+          Assert.assertFalse(seen[result.getIndex()]);
+          seen[result.getIndex()] = true;
+          Query query = queries.get(result.getIndex());
+          Assert.assertEquals(query, result.getQuery());
+          Solver expected = new Solver(maze.withQuery(query), options);
+          Assert.assertEquals(expected.getPathFromStartToGoal(), result.getSolver().getPathFromStartToGoal());
+          Assert.assertEquals(expected.getExploredSquares(), result.getSolver().getExploredSquares());
+        }
+      } finally {
+        pool.shutdown();
+      }
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testBuffersReusedAcrossThreads() throws Exception {
+    // every task runs on a thread of its own, one at a time
+    Executor threadPerTask = new Executor() {
+      @Override
+      public void execute(Runnable task) {
+        Thread thread = new Thread(task);
+        thread.start();
+        try {
+          thread.join();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    Maze maze = new Maze(5, 5, new Square(0, 0), new Square(4, 4), Sets.<Square> newHashSet());
+    List<Query> queries = new ArrayList<>();
+    for (int column = 0; column < 5; ++column) {
+      queries.add(new Query(new Square(0, column), new Square(4, 4 - column)));
+    }
+    BatchSolver solver = new BatchSolver(maze, new SolverOptions().engine(Solver.Engine.INDEXED), threadPerTask);
+    CompletionService<BatchSolver.Result> results = solver.submit(queries);
+    for (int i = 0; i < queries.size(); ++i) {
+      BatchSolver.Result result = results.take().get();
+      Query query = result.getQuery();
+      int expected = 1 + Math.abs(query.getStart().getRow() - query.getGoal().getRow())
+          + Math.abs(query.getStart().getColumn() - query.getGoal().getColumn());
+      Assert.assertEquals(expected, result.getSolver().getPathFromStartToGoal().size());
+    }
+    // the tasks never overlapped, so they all shared one set of buffers
+    Assert.assertEquals(1, solver.pooledBuffers());
+  }
+
+  @Test(timeout = 10000)
+  public void testBlockedQuery() throws Exception {
+    Maze maze = new Maze(3, 3, new Square(0, 0), new Square(2, 2), Sets.newHashSet(new Square(1, 1)));
+    List<Query> queries = new ArrayList<>();
+    queries.add(new Query(new Square(1, 1), new Square(2, 2)));
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      SolverOptions options = new SolverOptions().engine(Solver.Engine.INDEXED);
+      Future<BatchSolver.Result> result = new BatchSolver(maze, options, pool).submit(queries).take();
+      try {
+        result.get();
+        Assert.fail("expected the blocked start square to be rejected");
+      } catch (ExecutionException e) {
+        Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package edu.uab.cis.search.maze;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompactPathTest {
+
+  @Test
+  public void testListView() {
+    List<Square> path = randomWalk(new Random(8), 1000);
+    CompactPath compact = CompactPath.of(path);
+    Assert.assertEquals(path, compact);
+    Assert.assertEquals(path.hashCode(), compact.hashCode());
+    for (int i = 0; i < path.size(); ++i) {
+      Assert.assertEquals(path.get(i), compact.get(i));
+    }
+    Assert.assertSame(compact, CompactPath.of(compact));
+  }
+
+  @Test
+  public void testCursor() {
+    List<Square> path = randomWalk(new Random(9), 100);
+    CompactPath.Cursor cursor = CompactPath.of(path).cursor();
+    for (int i = 0; i < path.size(); ++i) {
+      Assert.assertTrue(cursor.next());
+      Assert.assertEquals(i, cursor.getIndex());
+      Assert.assertEquals(path.get(i), new Square(cursor.getRow(), cursor.getColumn()));
+    }
+    Assert.assertFalse(cursor.hasNext());
+    Assert.assertFalse(cursor.next());
+  }
+
+  @Test
+  public void testSerialization() throws IOException, ClassNotFoundException {
+    CompactPath compact = CompactPath.of(randomWalk(new Random(10), 500));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    compact.writeTo(new DataOutputStream(bytes));
+    // 3 ints, then 2 bits per step rounded up to whole longs
+    Assert.assertEquals(12 + 8 * 16, bytes.size());
+    CompactPath read = CompactPath.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    Assert.assertEquals(compact, read);
+
+    bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(compact);
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      Assert.assertEquals(compact, in.readObject());
+    }
+  }
+
+  @Test
+  public void testOfCells() {
+    // with a single column, every step is vertical
+    CompactPath column = CompactPath.ofCells(new int[] { 0, 1, 2, 1 }, 1);
+    Assert.assertEquals(new Square(2, 0), column.get(2));
+    Assert.assertEquals(new Square(1, 0), column.get(3));
+    Assert.assertTrue(CompactPath.ofCells(new int[0], 5).isEmpty());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testReadOnly() {
+    CompactPath.of(randomWalk(new Random(11), 3)).add(new Square(0, 0));
+  }
+
+  private static List<Square> randomWalk(Random random, int length) {
+    List<Square> path = new ArrayList<>();
+    int row = 0;
+    int column = 0;
+    path.add(new Square(row, column));
+    for (int i = 1; i < length; ++i) {
+      switch (random.nextInt(4)) {
+      case 0:
+        --row;
+        break;
+      case 1:
+        ++row;
+        break;
+      case 2:
+        --column;
+        break;
+      default:
+        ++column;
+      }
+      path.add(new Square(row, column));
+    }
+    return path;
+  }
+}
@@ -0,0 +1,213 @@
+package edu.uab.cis.search.maze;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+public class GridTest {
+
+  @Test
+  public void testIsBlocked() {
+    Set<Square> obstacles = Sets.newHashSet(new Square(0, 1), new Square(2, 4), new Square(5, 5));
+    Grid grid = new Grid(3, 5, obstacles);
+    Assert.assertEquals(3, grid.getRows());
+    Assert.assertEquals(5, grid.getColumns());
+    for (int row = 0; row < 3; ++row) {
+      for (int column = 0; column < 5; ++column) {
+        Square square = new Square(row, column);
+        Assert.assertEquals(obstacles.contains(square), grid.isBlocked(row, column));
+        Assert.assertEquals(obstacles.contains(square), grid.isBlocked(square));
+      }
+    }
+    Assert.assertTrue(grid.isBlocked(-1, 0));
+    Assert.assertTrue(grid.isBlocked(3, 0));
+    Assert.assertTrue(grid.isBlocked(0, -1));
+    Assert.assertTrue(grid.isBlocked(0, 5));
+  }
+
+  @Test
+  public void testSharedBetweenQueries() {
+    Grid grid = new Grid(3, 5, Sets.newHashSet(new Square(1, 2), new Square(2, 3)));
+    Maze maze1 = new Maze(grid, new Square(2, 1), new Square(0, 4));
+    Maze maze2 = new Maze(grid, new Query(new Square(0, 0), new Square(2, 4)));
+    Assert.assertSame(grid, maze1.getGrid());
+    Assert.assertSame(grid, maze2.getGrid());
+    Assert.assertEquals(new Query(new Square(0, 0), new Square(2, 4)), maze2.getQuery());
+    try {
+      new Maze(grid, new Square(1, 2), new Square(0, 4));
+      Assert.fail("expected the blocked start square to be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testWithBlocked() {
+    Grid grid = new Grid(2, 3, Sets.newHashSet(new Square(0, 1)));
+    Grid changed = grid.withBlocked(new Square(0, 1), false).withBlocked(new Square(1, 2), true);
+    Assert.assertTrue(grid.isBlocked(0, 1));
+    Assert.assertFalse(grid.isBlocked(1, 2));
+    Assert.assertFalse(changed.isBlocked(0, 1));
+    Assert.assertTrue(changed.isBlocked(1, 2));
+    Assert.assertEquals(0, grid.getVersion());
+    Assert.assertEquals(2, changed.getVersion());
+    Assert.assertEquals(grid.getLineage(), changed.getLineage());
+    Assert.assertNotEquals(grid.getLineage(), new Grid(2, 3, Sets.<Square> newHashSet()).getLineage());
+  }
+
+  @Test
+  public void testNeighborMasks() {
+    Random random = new Random(6);
+    Grid grid = new Grid(7, 9, Sets.<Square> newHashSet());
+    grid.neighborMasks();
+    for (int change = 0; change < 200; ++change) {
+      Square square = new Square(random.nextInt(7), random.nextInt(9));
+      Grid changed = grid.withBlocked(square, random.nextBoolean());
+      // the copy updated from the old masks matches masks built from scratch
+      byte[][] masks = changed.neighborMasks();
+      Assert.assertArrayEquals(new Grid(7, 9, changed.copyObstacles()).neighborMasks(), masks);
+      for (int row = 0; row < 7; ++row) {
+        for (int column = 0; column < 9; ++column) {
+          int mask = Grid.mask(masks, row * 9 + column);
+          Assert.assertEquals(!changed.isBlocked(row - 1, column), (mask & Grid.UP) != 0);
+          Assert.assertEquals(!changed.isBlocked(row + 1, column), (mask & Grid.DOWN) != 0);
+          Assert.assertEquals(!changed.isBlocked(row, column - 1), (mask & Grid.LEFT) != 0);
+          Assert.assertEquals(!changed.isBlocked(row, column + 1), (mask & Grid.RIGHT) != 0);
+        }
+      }
+      grid = changed;
+    }
+  }
+
+  @Test
+  public void testNeighborMaskPages() {
+    Grid grid = new Grid(100, 90, Sets.<Square> newHashSet());
+    byte[][] masks = grid.neighborMasks();
+    Assert.assertEquals(3, masks.length);
+    Assert.assertEquals(9000 - 2 * Grid.PAGE_SIZE, masks[2].length);
+    // the square's neighbors straddle the first two pages, so only those are
+    // copied and the old grid's pages are left as they were
+    int cell = Grid.PAGE_SIZE + 10;
+    Grid changed = grid.withBlocked(new Square(cell / 90, cell % 90), true);
+    byte[][] changedMasks = changed.neighborMasks();
+    Assert.assertNotSame(masks[0], changedMasks[0]);
+    Assert.assertNotSame(masks[1], changedMasks[1]);
+    Assert.assertSame(masks[2], changedMasks[2]);
+    Assert.assertEquals(Grid.UP | Grid.DOWN | Grid.LEFT | Grid.RIGHT, Grid.mask(masks, cell - 90));
+    Assert.assertEquals(Grid.UP | Grid.LEFT | Grid.RIGHT, Grid.mask(changedMasks, cell - 90));
+    Assert.assertArrayEquals(new Grid(100, 90, changed.copyObstacles()).neighborMasks(), changedMasks);
+  }
+
+  @Test
+  public void testSearchMasks() {
+    Grid grid = new Grid(4, 5, Sets.newHashSet(new Square(1, 2)));
+    // a grid searched once is not worth a pass to build the masks
+    Assert.assertNull(grid.searchMasks());
+    byte[][] masks = grid.searchMasks();
+    Assert.assertNotNull(masks);
+    Assert.assertSame(masks, grid.searchMasks());
+    for (int cell = 0; cell < 20; ++cell) {
+      Assert.assertEquals(grid.neighborMask(cell / 5, cell % 5), Grid.mask(masks, cell));
+    }
+    // a new version of a searched grid is searched again, so it keeps them
+    Assert.assertNotNull(grid.withBlocked(new Square(0, 0), true).searchMasks());
+    Grid fresh = new Grid(4, 5, Sets.<Square> newHashSet());
+    Assert.assertNull(fresh.searchMasks());
+    Assert.assertNotNull(fresh.withBlocked(new Square(0, 0), true).searchMasks());
+  }
+
+  @Test
+  public void testBlockedRun() {
+    Random random = new Random(8);
+    Set<Square> obstacles = Sets.newHashSet();
+    for (int i = 0; i < 300; ++i) {
+      obstacles.add(new Square(random.nextInt(7), random.nextInt(150)));
+    }
+    Grid grid = new Grid(7, 150, obstacles);
+    for (int row = -1; row <= 7; ++row) {
+      for (int column = -70; column < 160; ++column) {
+        long run = grid.blockedRun(row, column);
+        for (int i = 0; i < 64; ++i) {
+          Assert.assertEquals(grid.isBlocked(row, column + i), (run & (1L << i)) != 0);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testComponents() {
+    Grid grid = new Grid(3, 5, Sets.newHashSet(new Square(0, 2), new Square(1, 2), new Square(2, 2)));
+    Assert.assertTrue(grid.isConnected(new Square(0, 0), new Square(2, 1)));
+    Assert.assertFalse(grid.isConnected(new Square(0, 0), new Square(2, 4)));
+    Assert.assertFalse(grid.isConnected(new Square(0, 0), new Square(0, 2)));
+    Assert.assertTrue(grid.withBlocked(new Square(1, 2), false).isConnected(new Square(0, 0), new Square(2, 4)));
+
+    Random random = new Random(7);
+    grid = new Grid(7, 9, Sets.<Square> newHashSet());
+    grid.components();
+    for (int change = 0; change < 500; ++change) {
+      Square square = new Square(random.nextInt(7), random.nextInt(9));
+      Grid changed = grid.withBlocked(square, random.nextInt(3) != 0);
+      // the labels updated from the old ones split the squares into the same
+      // regions as labels built from scratch
+      Components updated = changed.components();
+      Components built = Components.of(changed);
+      for (int a = 0; a < 63; ++a) {
+        Assert.assertEquals(changed.isBlocked(a / 9, a % 9), updated.label(a) == 0);
+        for (int b = 0; b < 63; ++b) {
+          Assert.assertEquals(built.label(a) == built.label(b), updated.label(a) == updated.label(b));
+        }
+      }
+      grid = changed;
+    }
+  }
+
+  @Test
+  public void testComponentsAcrossChunks() {
+    Random random = new Random(8);
+    for (int trial = 0; trial < 2; ++trial) {
+      Set<Square> obstacles = new HashSet<>();
+      for (int i = 0; i < 1000; ++i) {
+        obstacles.add(new Square(random.nextInt(40), random.nextInt(60)));
+      }
+      Grid grid = new Grid(40, 60, obstacles);
+      // the floods read the masks if the grid has them and probe otherwise
+      if (trial == 1) {
+        grid.neighborMasks();
+      }
+      grid.components();
+      for (int change = 0; change < 300; ++change) {
+        Square square = new Square(random.nextInt(40), random.nextInt(60));
+        Grid changed = grid.withBlocked(square, random.nextBoolean());
+        Assert.assertEquals(trial == 1, changed.builtMasks() != null);
+        // the labels of the two sets match one to one
+        Components updated = changed.components();
+        Components built = Components.of(changed);
+        Map<Integer, Integer> toUpdated = new HashMap<>();
+        Map<Integer, Integer> toBuilt = new HashMap<>();
+        for (int cell = 0; cell < 2400; ++cell) {
+          Integer a = built.label(cell);
+          Integer b = updated.label(cell);
+          Assert.assertEquals(changed.isBlocked(cell / 60, cell % 60), b == 0);
+          Integer previous = toUpdated.put(a, b);
+          Assert.assertTrue(previous == null || previous.equals(b));
+          previous = toBuilt.put(b, a);
+          Assert.assertTrue(previous == null || previous.equals(a));
+        }
+        grid = changed;
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooManySquares() {
+    new Grid(100000, 100000, Sets.<Square> newHashSet());
+  }
+}
@@ -0,0 +1,94 @@
+package edu.uab.cis.search.maze;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+public class HierarchicalSolverTest {
+
+  @Test(timeout = 10000)
+  public void testOpenGrid() {
+    Grid grid = new Grid(20, 30, Sets.<Square> newHashSet());
+    HierarchicalSolver solver = new HierarchicalSolver(grid, 8);
+    Assert.assertTrue(solver.getNodeCount() > 0);
+    Assert.assertTrue(solver.getEdgeCount() > 0);
+    Assert.assertTrue(solver.getBuildNanos() > 0);
+    Query query = new Query(new Square(1, 2), new Square(18, 27));
+    HierarchicalSolver.Result result = solver.solve(query);
+    List<Square> path = result.getPathFromStartToGoal();
+    SolverTest.assertValidPath(new Maze(grid, query), path);
+    Assert.assertEquals(17 + 25 + 1, path.size());
+    Assert.assertTrue(result.getAbstractNodesExpanded() > 0);
+  }
+
+  @Test(timeout = 10000)
+  public void testSearchesReused() {
+    Grid grid = new Grid(40, 40, Sets.<Square> newHashSet());
+    HierarchicalSolver solver = new HierarchicalSolver(grid, 8, true);
+    Assert.assertEquals(0, solver.pooledSearches());
+    Random random = new Random(29);
+    for (int i = 0; i < 50; ++i) {
+      Square start = new Square(random.nextInt(40), random.nextInt(40));
+      Square goal = new Square(random.nextInt(40), random.nextInt(40));
+      Query query = new Query(start, goal);
+      List<Square> path = solver.solve(query).getPathFromStartToGoal();
+      SolverTest.assertValidPath(new Maze(grid, query), path);
+      int distance = Math.abs(start.getRow() - goal.getRow()) + Math.abs(start.getColumn() - goal.getColumn());
+      Assert.assertEquals(distance + 1, path.size());
+    }
+    Assert.assertEquals(1, solver.pooledSearches());
+  }
+
+  @Test(timeout = 10000)
+  public void testNearOptimalPaths() {
+    Random random = new Random(19);
+    for (int trial = 0; trial < 300; ++trial) {
+      double density = 0.1 * random.nextInt(4);
+      Maze maze = SolverTest.randomMaze(random, 1 + random.nextInt(30), 1 + random.nextInt(30), density);
+      if (maze == null) {
+        continue;
+      }
+      HierarchicalSolver solver = new HierarchicalSolver(maze.getGrid(), 2 + random.nextInt(6));
+      List<Square> path = solver.solve(maze.getQuery()).getPathFromStartToGoal();
+      SolverTest.assertValidPath(maze, path);
+      int optimal = new Solver(maze, Solver.Engine.INDEXED).getPathFromStartToGoal().size();
+      Assert.assertTrue(maze.toString(), path.size() >= optimal);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testExactPaths() {
+    Random random = new Random(23);
+    for (int trial = 0; trial < 300; ++trial) {
+      double density = 0.1 * random.nextInt(4);
+      Maze maze = SolverTest.randomMaze(random, 1 + random.nextInt(30), 1 + random.nextInt(30), density);
+      if (maze == null) {
+        continue;
+      }
+      HierarchicalSolver solver = new HierarchicalSolver(maze.getGrid(), 2 + random.nextInt(6), true);
+      List<Square> path = solver.solve(maze.getQuery()).getPathFromStartToGoal();
+      SolverTest.assertValidPath(maze, path);
+      int optimal = new Solver(maze, Solver.Engine.INDEXED).getPathFromStartToGoal().size();
+      Assert.assertEquals(maze.toString(), optimal, path.size());
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testUnreachableGoal() {
+    // @formatter:off
+    String mazeString = 
+      "#######\n" +
+      "#S #  #\n" +
+      "#  # G#\n" +
+      "#######\n";
+    // @formatter:on
+    Maze maze = new Maze(2, 5, new Square(0, 0), new Square(1, 4), Sets.newHashSet(new Square(0, 2), new Square(1, 2)));
+    Assert.assertEquals(mazeString, maze.toString());
+    HierarchicalSolver solver = new HierarchicalSolver(maze.getGrid(), 2);
+    Assert.assertTrue(solver.solve(maze.getQuery()).getPathFromStartToGoal().isEmpty());
+  }
+}
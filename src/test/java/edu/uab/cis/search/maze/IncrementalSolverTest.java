@@ -0,0 +1,153 @@
+package edu.uab.cis.search.maze;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IncrementalSolverTest {
+
+  @Test
+  public void testInitialPathMatchesSolver() {
+    Random random = new Random(12);
+    for (int trial = 0; trial < 100; ++trial) {
+      Maze maze = SolverTest.randomMaze(random, 15, 15, 0.3);
+      if (maze == null) {
+        continue;
+      }
+      IncrementalSolver solver = new IncrementalSolver(maze);
+      List<Square> path = solver.getPathFromStartToGoal();
+      SolverTest.assertValidPath(maze, path);
+      int expected = new Solver(maze, Solver.Engine.INDEXED).getPathFromStartToGoal().size();
+      Assert.assertEquals(expected, path.size());
+    }
+  }
+
+  @Test
+  public void testReplanMatchesFreshSolver() {
+    Random random = new Random(7);
+    for (int trial = 0; trial < 20; ++trial) {
+      Maze maze = SolverTest.randomMaze(random, 20, 20, 0.25);
+      if (maze == null) {
+        continue;
+      }
+      IncrementalSolver solver = new IncrementalSolver(maze);
+      solver.getPathFromStartToGoal();
+      for (int edit = 0; edit < 100; ++edit) {
+        Square square = new Square(random.nextInt(20), random.nextInt(20));
+        if (random.nextInt(5) == 0) {
+          // move the start along the current path, or somewhere else open
+          List<Square> path = solver.getPathFromStartToGoal();
+          if (path.size() > 1) {
+            solver.moveStart(path.get(1));
+          } else if (!solver.isBlocked(square)) {
+            solver.moveStart(square);
+          }
+        } else if (!square.equals(solver.getStart()) && !square.equals(solver.getGoal())) {
+          solver.setBlocked(square, !solver.isBlocked(square));
+        }
+        Maze current = new Maze(solver.getGrid(), solver.getStart(), solver.getGoal());
+        List<Square> expected = new Solver(current, Solver.Engine.INDEXED).getPathFromStartToGoal();
+        List<Square> path = solver.getPathFromStartToGoal();
+        Assert.assertEquals(expected.size(), path.size());
+        if (!path.isEmpty()) {
+          SolverTest.assertValidPath(current, path);
+        }
+      }
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testMoveStartMatchesBreadthFirstSearch() {
+    Random random = new Random(31);
+    for (int trial = 0; trial < 40; ++trial) {
+      Maze maze = SolverTest.randomMaze(random, 15, 15, 0.3);
+      if (maze == null) {
+        continue;
+      }
+      IncrementalSolver solver = new IncrementalSolver(maze);
+      solver.getPathFromStartToGoal();
+      // only the start moves, to random open squares, so no obstacle change
+      // ever corrects the queued keys
+      for (int move = 0; move < 50; ++move) {
+        Square square = new Square(random.nextInt(15), random.nextInt(15));
+        if (solver.isBlocked(square)) {
+          continue;
+        }
+        solver.moveStart(square);
+        Maze current = new Maze(maze.getGrid(), square, maze.getGoal());
+        List<Square> path = solver.getPathFromStartToGoal();
+        Assert.assertEquals(breadthFirstLength(current), path.size());
+        if (!path.isEmpty()) {
+          SolverTest.assertValidPath(current, path);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return The number of squares on a shortest path from the maze's start to
+   *         its goal, including both, or 0 if the goal cannot be reached.
+   */
+  private static int breadthFirstLength(Maze maze) {
+    int columns = maze.getColumns();
+    int[] distances = new int[maze.getRows() * columns];
+    Arrays.fill(distances, -1);
+    Deque<Square> queue = new ArrayDeque<>();
+    queue.add(maze.getStart());
+    distances[maze.getStart().getRow() * columns + maze.getStart().getColumn()] = 1;
+    while (!queue.isEmpty()) {
+      Square square = queue.poll();
+      int distance = distances[square.getRow() * columns + square.getColumn()];
+      if (square.equals(maze.getGoal())) {
+        return distance;
+      }
+      int[][] steps = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+      for (int[] step : steps) {
+        Square next = new Square(square.getRow() + step[0], square.getColumn() + step[1]);
+        if (!maze.isBlocked(next) && distances[next.getRow() * columns + next.getColumn()] < 0) {
+          distances[next.getRow() * columns + next.getColumn()] = distance + 1;
+          queue.add(next);
+        }
+      }
+    }
+    return 0;
+  }
+
+  @Test
+  public void testLocalEditRepairsLocally() {
+    Maze maze = new Maze(200, 200, new Square(0, 0), new Square(199, 199), Collections.<Square> emptySet());
+    IncrementalSolver solver = new IncrementalSolver(maze);
+    solver.getPathFromStartToGoal();
+    int initial = solver.getLastExpansions();
+    List<Square> path = solver.getPathFromStartToGoal();
+    Assert.assertEquals(0, solver.getLastExpansions());
+
+    solver.setBlocked(path.get(path.size() / 2), true);
+    path = solver.getPathFromStartToGoal();
+    Assert.assertEquals(399, path.size());
+    Assert.assertTrue(solver.getLastExpansions() < initial / 10);
+  }
+
+  @Test
+  public void testUnreachableGoal() {
+    Maze maze = new Maze(3, 3, new Square(0, 0), new Square(2, 2), Collections.<Square> emptySet());
+    IncrementalSolver solver = new IncrementalSolver(maze);
+    solver.setBlocked(new Square(1, 2), true);
+    solver.setBlocked(new Square(2, 1), true);
+    Assert.assertTrue(solver.getPathFromStartToGoal().isEmpty());
+    solver.setBlocked(new Square(2, 1), false);
+    Assert.assertEquals(5, solver.getPathFromStartToGoal().size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBlockingGoal() {
+    Maze maze = new Maze(3, 3, new Square(0, 0), new Square(2, 2), Collections.<Square> emptySet());
+    new IncrementalSolver(maze).setBlocked(new Square(2, 2), true);
+  }
+}
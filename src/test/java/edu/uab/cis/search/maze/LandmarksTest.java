@@ -0,0 +1,112 @@
+package edu.uab.cis.search.maze;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
+
+public class LandmarksTest {
+
+  @Test
+  public void testDistances() throws InterruptedException {
+    // a wall with a gap at the bottom between columns 0-1 and 3-4
+    Set<Square> wall = Sets.newHashSet(new Square(0, 2), new Square(1, 2), new Square(2, 2));
+    Grid grid = new Grid(4, 5, wall);
+    Landmarks landmarks = Landmarks.of(grid, Arrays.asList(new Square(0, 0)), MoreExecutors.sameThreadExecutor());
+    Assert.assertEquals(Arrays.asList(new Square(0, 0)), landmarks.getLandmarks());
+    Assert.assertEquals(0, landmarks.getDistance(0, new Square(0, 0)));
+    Assert.assertEquals(5, landmarks.getDistance(0, new Square(3, 2)));
+    Assert.assertEquals(10, landmarks.getDistance(0, new Square(0, 4)));
+    Assert.assertEquals(-1, landmarks.getDistance(0, new Square(1, 2)));
+    // across the wall, the landmark's bound beats the Manhattan distance
+    Assert.assertEquals(9, landmarks.lowerBound(new Square(0, 1), new Square(0, 4)));
+  }
+
+  @Test
+  public void testAdmissible() throws InterruptedException {
+    Random random = new Random(23);
+    for (int trial = 0; trial < 30; ++trial) {
+      Maze maze = SolverTest.randomMaze(random, 1 + random.nextInt(30), 1 + random.nextInt(30), 0.3);
+      if (maze == null) {
+        continue;
+      }
+      Landmarks landmarks = Landmarks.compute(maze.getGrid(), 1 + random.nextInt(8));
+      int length = new Solver(maze, Solver.Engine.INDEXED).getPathFromStartToGoal().size() - 1;
+      Assert.assertTrue(landmarks.lowerBound(maze.getStart(), maze.getGoal()) <= length);
+
+      for (Solver.Engine engine : new Solver.Engine[] { Solver.Engine.NODE, Solver.Engine.INDEXED }) {
+        Solver solver = new Solver(maze, new SolverOptions().engine(engine).landmarks(landmarks));
+        Assert.assertEquals(length, solver.getPathFromStartToGoal().size() - 1);
+        SolverTest.assertValidPath(maze, solver.getPathFromStartToGoal());
+      }
+      // both engines still explore squares in the same order
+      SolverOptions options = new SolverOptions().landmarks(landmarks);
+      Assert.assertEquals(
+          new Solver(maze, options).getPathFromStartToGoal(),
+          new Solver(maze, options.engine(Solver.Engine.INDEXED)).getPathFromStartToGoal());
+      Assert.assertEquals(
+          new Solver(maze, options).getPathFromStartToGoal(),
+          new Solver(maze, options.openList(Solver.OpenListType.BUCKET)).getPathFromStartToGoal());
+    }
+  }
+
+  @Test
+  public void testFewerExploredBehindWall() throws InterruptedException {
+    // the goal is just across a long wall from the start, so the Manhattan
+    // distance sends the search up against the wall
+    int rows = 40;
+    int columns = 40;
+    Set<Square> obstacles = new HashSet<>();
+    for (int row = 0; row < rows - 1; ++row) {
+      obstacles.add(new Square(row, 20));
+    }
+    Grid grid = new Grid(rows, columns, obstacles);
+    Maze maze = new Maze(grid, new Square(0, 19), new Square(0, 21));
+    Landmarks landmarks = Landmarks.compute(grid, 4);
+    SolverOptions options = new SolverOptions().engine(Solver.Engine.INDEXED);
+    Solver plain = new Solver(maze, options);
+    Solver alt = new Solver(maze, options.landmarks(landmarks));
+    Assert.assertEquals(plain.getPathFromStartToGoal().size(), alt.getPathFromStartToGoal().size());
+    Assert.assertTrue(alt.getExploredSquares().size() * 4 < plain.getExploredSquares().size());
+
+    // landmarks for another grid are ignored rather than misused
+    Grid changed = grid.withBlocked(new Square(0, 5), true);
+    Maze changedMaze = new Maze(changed, maze.getQuery());
+    Assert.assertEquals(
+        new Solver(changedMaze, Solver.Engine.INDEXED).getPathFromStartToGoal(),
+        new Solver(changedMaze, options).getPathFromStartToGoal());
+  }
+
+  @Test
+  public void testLargeGrid() throws InterruptedException {
+    // more squares than a short holds, though every distance still fits one
+    Grid grid = new Grid(300, 300, Sets.newHashSet(new Square(150, 150)));
+    Landmarks landmarks = Landmarks.compute(grid, 4);
+    List<Square> squares = landmarks.getLandmarks();
+    Assert.assertEquals(4, squares.size());
+    Assert.assertEquals(new Square(0, 0), squares.get(0));
+    Assert.assertEquals(598, landmarks.getDistance(0, new Square(299, 299)));
+    Assert.assertEquals(-1, landmarks.getDistance(0, new Square(150, 150)));
+  }
+
+  @Test
+  public void testLongDistances() throws InterruptedException {
+    // the second landmark's distances do not fit in a short, so both tables
+    // are widened, keeping the first one's unreachable squares
+    Grid grid = new Grid(1, 70000, Sets.newHashSet(new Square(0, 100)));
+    List<Square> squares = Arrays.asList(new Square(0, 0), new Square(0, 200));
+    Landmarks landmarks = Landmarks.of(grid, squares, MoreExecutors.sameThreadExecutor());
+    Assert.assertEquals(50, landmarks.getDistance(0, new Square(0, 50)));
+    Assert.assertEquals(-1, landmarks.getDistance(0, new Square(0, 69999)));
+    Assert.assertEquals(69799, landmarks.getDistance(1, new Square(0, 69999)));
+    Assert.assertEquals(-1, landmarks.getDistance(1, new Square(0, 0)));
+    Assert.assertEquals(69799 - 200, landmarks.lowerBound(new Square(0, 400), new Square(0, 69999)));
+  }
+}
@@ -0,0 +1,79 @@
+package edu.uab.cis.search.maze;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MazeFileTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testWriteAndMap() throws IOException {
+    Random random = new Random(3);
+    for (int trial = 0; trial < 20; ++trial) {
+      Maze maze = SolverTest.randomMaze(random, 1 + random.nextInt(40), 1 + random.nextInt(40), 0.3);
+      if (maze == null) {
+        continue;
+      }
+      Path path = this.folder.newFile().toPath();
+      MazeFile.write(maze, path);
+      Assert.assertEquals(MazeFile.HEADER_BYTES + 8 * Grid.words(maze.getRows(), maze.getColumns()), Files.size(path));
+      Maze mapped = MazeFile.map(path);
+      Assert.assertEquals(maze.toString(), mapped.toString());
+      Assert.assertEquals(
+          new Solver(maze).getPathFromStartToGoal(),
+          new Solver(mapped).getPathFromStartToGoal());
+    }
+  }
+
+  @Test
+  public void testConvertAscii() throws IOException {
+    Random random = new Random(5);
+    for (int trial = 0; trial < 20; ++trial) {
+      Maze maze = SolverTest.randomMaze(random, 1 + random.nextInt(40), 1 + random.nextInt(40), 0.3);
+      if (maze == null || maze.getStart().equals(maze.getGoal())) {
+        continue;
+      }
+      Path path = this.folder.newFile().toPath();
+      MazeFile.convertAscii(new StringReader(maze.toString()), path);
+      Maze mapped = MazeFile.map(path);
+      Assert.assertEquals(maze.getStart(), mapped.getStart());
+      Assert.assertEquals(maze.getGoal(), mapped.getGoal());
+      Assert.assertEquals(maze.toString(), mapped.toString());
+    }
+  }
+
+  @Test
+  public void testMappedGridWithBlocked() throws IOException {
+    Maze maze = SolverTest.randomMaze(new Random(9), 10, 10, 0.2);
+    Path path = this.folder.newFile().toPath();
+    MazeFile.write(maze, path);
+    Grid grid = MazeFile.map(path).getGrid();
+    Square square = new Square(4, 4);
+    Grid changed = grid.withBlocked(square, !grid.isBlocked(square));
+    Assert.assertEquals(!grid.isBlocked(square), changed.isBlocked(square));
+    Assert.assertEquals(1, changed.getVersion());
+  }
+
+  @Test(expected = IOException.class)
+  public void testMapInvalidFile() throws IOException {
+    Path path = this.folder.newFile().toPath();
+    Files.write(path, new byte[64]);
+    MazeFile.map(path);
+  }
+
+  @Test(expected = IOException.class)
+  public void testConvertAsciiWithoutGoal() throws IOException {
+    String ascii = "#####\n#S  #\n#####\n";
+    MazeFile.convertAscii(new StringReader(ascii), this.folder.newFile().toPath());
+  }
+}
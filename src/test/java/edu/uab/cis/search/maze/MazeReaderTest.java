@@ -0,0 +1,70 @@
+package edu.uab.cis.search.maze;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MazeReaderTest {
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    Random random = new Random(21);
+    for (int trial = 0; trial < 50; ++trial) {
+      Maze maze = SolverTest.randomMaze(random, 1 + random.nextInt(70), 1 + random.nextInt(70), 0.3);
+      if (maze == null || maze.getStart().equals(maze.getGoal())) {
+        // a maze whose start is its goal is drawn without a 'G'
+        continue;
+      }
+      String text = maze.toString();
+      Maze read = MazeReader.read(new StringReader(text));
+      Assert.assertEquals(maze.getStart(), read.getStart());
+      Assert.assertEquals(maze.getGoal(), read.getGoal());
+      Assert.assertEquals(maze.getRows(), read.getRows());
+      Assert.assertEquals(maze.getColumns(), read.getColumns());
+      Assert.assertEquals(text, read.toString());
+
+      byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+      Maze fromChannel = MazeReader.read(Channels.newChannel(new ByteArrayInputStream(bytes)));
+      Assert.assertEquals(text, fromChannel.toString());
+    }
+  }
+
+  @Test
+  public void testFullyBlockedRowAndCarriageReturns() throws IOException {
+    String text = "#####\r\n#S  #\r\n#####\r\n#  G#\r\n#####";
+    Maze maze = MazeReader.read(new StringReader(text));
+    Assert.assertEquals(3, maze.getRows());
+    Assert.assertEquals(3, maze.getColumns());
+    Assert.assertEquals(new Square(2, 2), maze.getGoal());
+    Assert.assertTrue(maze.isBlocked(1, 1));
+  }
+
+  @Test
+  public void testInvalidText() {
+    String[] invalid = {
+        "",
+        "#####\n#S G#\n",
+        "#####\n#S G#\n# ###\n",
+        "#####\n#S G \n#####\n",
+        "#####\n#S G#\n####\n",
+        "#####\n#S G##\n#####\n",
+        "#####\n#S  #\n#####\n",
+        "#####\n#SSG#\n#####\n",
+        "#####\n#GxS#\n#####\n",
+        "##S##\n# G #\n#####\n", };
+    for (String text : invalid) {
+      try {
+        MazeReader.read(new StringReader(text));
+        Assert.fail("Expected an IOException for: " + text);
+      } catch (IOException e) {
+        // expected
+      }
+    }
+  }
+}
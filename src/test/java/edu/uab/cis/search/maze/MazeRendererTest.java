@@ -0,0 +1,65 @@
+package edu.uab.cis.search.maze;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+public class MazeRendererTest {
+
+  @Test
+  public void testOutputsMatch() throws IOException {
+    // wide enough that rows span several buffers
+    Maze maze = SolverTest.randomMaze(new Random(4), 30, 9000, 0.2);
+    String expected = maze.toString();
+    MazeRenderer renderer = new MazeRenderer(maze);
+
+    StringWriter writer = new StringWriter();
+    renderer.render(writer);
+    Assert.assertEquals(expected, writer.toString());
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    renderer.render(bytes);
+    Assert.assertEquals(expected, new String(bytes.toByteArray(), StandardCharsets.US_ASCII));
+
+    CharBuffer buffer = CharBuffer.allocate(expected.length());
+    renderer.render(buffer);
+    buffer.flip();
+    Assert.assertEquals(expected, buffer.toString());
+  }
+
+  @Test
+  public void testOverlay() throws IOException {
+    Set<Square> obstacles = Sets.newHashSet(new Square(0, 1), new Square(1, 1));
+    Maze maze = new Maze(3, 3, new Square(0, 0), new Square(0, 2), obstacles);
+    Solver solver = new Solver(maze);
+    StringBuilder builder = new StringBuilder();
+    new MazeRenderer(maze).solver(solver).render(builder);
+    String expected = ""
+        + "#####\n"
+        + "#S#G#\n"
+        + "#*#*#\n"
+        + "#***#\n"
+        + "#####\n";
+    Assert.assertEquals(expected, builder.toString());
+
+    builder.setLength(0);
+    Set<Square> explored = Sets.newHashSet(new Square(2, 2), new Square(1, 0), new Square(9, 9));
+    new MazeRenderer(maze).explored(explored).render(builder);
+    expected = ""
+        + "#####\n"
+        + "#S#G#\n"
+        + "#.# #\n"
+        + "#  .#\n"
+        + "#####\n";
+    Assert.assertEquals(expected, builder.toString());
+  }
+}
@@ -32,4 +32,41 @@ public class MazeTest {
     Assert.assertTrue(maze.isBlocked(new Square(0, 6)));
     Assert.assertTrue(maze.isBlocked(new Square(7, 0)));
   }
+
+  @Test
+  public void testPrimitiveIsBlocked() {
+    Set<Square> obstacles = Sets.newHashSet(new Square(0, 1), new Square(2, 4), new Square(5, 5));
+    Maze maze = new Maze(3, 5, new Square(0, 0), new Square(2, 3), obstacles);
+    Assert.assertEquals(3, maze.getRows());
+    Assert.assertEquals(5, maze.getColumns());
+    for (int row = 0; row < 3; ++row) {
+      for (int column = 0; column < 5; ++column) {
+        Square square = new Square(row, column);
+        Assert.assertEquals(obstacles.contains(square), maze.isBlocked(row, column));
+        Assert.assertEquals(obstacles.contains(square), maze.isBlocked(square));
+      }
+    }
+    Assert.assertTrue(maze.isBlocked(-1, 0));
+    Assert.assertTrue(maze.isBlocked(3, 0));
+    Assert.assertTrue(maze.isBlocked(0, 5));
+    Assert.assertTrue(maze.isBlocked(5, 5));
+  }
+
+  @Test
+  public void testWithQuery() {
+    Set<Square> obstacles = Sets.newHashSet(new Square(1, 2), new Square(2, 3));
+    Maze maze = new Maze(3, 5, new Square(2, 1), new Square(0, 4), obstacles);
+    Maze other = maze.withQuery(new Query(new Square(0, 0), new Square(2, 4)));
+    Assert.assertEquals(new Square(0, 0), other.getStart());
+    Assert.assertEquals(new Square(2, 4), other.getGoal());
+    for (Square square : obstacles) {
+      Assert.assertTrue(other.isBlocked(square));
+    }
+    try {
+      maze.withQuery(new Query(new Square(1, 2), new Square(2, 4)));
+      Assert.fail("expected the blocked start square to be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
 }
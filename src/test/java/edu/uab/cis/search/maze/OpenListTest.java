@@ -0,0 +1,100 @@
+package edu.uab.cis.search.maze;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OpenListTest {
+
+  @Test
+  public void testCellHeapOrder() {
+    checkOrder(new CellHeap());
+  }
+
+  @Test
+  public void testBucketOpenListOrder() {
+    checkOrder(new BucketOpenList());
+  }
+
+  @Test
+  public void testCellHeapMatchesReference() {
+    checkAgainstReference(new CellHeap(), new Random(1));
+  }
+
+  @Test
+  public void testBucketOpenListMatchesReference() {
+    checkAgainstReference(new BucketOpenList(), new Random(1));
+  }
+
+  private static void checkOrder(OpenList open) {
+    open.ensureCells(100);
+    open.push(50, 7, 3);
+    open.push(10, 7, 3);
+    open.push(20, 5, 5);
+    open.push(30, 7, 1);
+    open.push(40, 9, 0);
+    Assert.assertEquals(5, open.size());
+    Assert.assertEquals(5, open.minF());
+    Assert.assertEquals(20, open.pop());
+    // f, then h, then cell
+    Assert.assertEquals(30, open.pop());
+    Assert.assertEquals(10, open.pop());
+    // lowering the f of a queued cell moves it forward
+    open.decreaseKey(40, 7, 0);
+    Assert.assertTrue(open.contains(40));
+    Assert.assertEquals(40, open.pop());
+    Assert.assertFalse(open.contains(40));
+    Assert.assertEquals(50, open.pop());
+    Assert.assertTrue(open.isEmpty());
+  }
+
+  /**
+   * Drives the open list with random pushes, decreases and pops, checking every
+   * pop against a brute force scan of the cells that should be queued.
+   */
+  private static void checkAgainstReference(OpenList open, Random random) {
+    int cells = 500;
+    open.ensureCells(cells);
+    int[] f = new int[cells];
+    // as in a search, the h score is a function of the cell
+    int[] h = new int[cells];
+    for (int i = 0; i < cells; ++i) {
+      h[i] = random.nextInt(40);
+    }
+    boolean[] queued = new boolean[cells];
+    int size = 0;
+    for (int step = 0; step < 20000; ++step) {
+      int cell = random.nextInt(cells);
+      int action = random.nextInt(3);
+      if (action == 0 && !queued[cell]) {
+        f[cell] = h[cell] + random.nextInt(200);
+        open.push(cell, f[cell], h[cell]);
+        queued[cell] = true;
+        ++size;
+      } else if (action == 1 && queued[cell] && f[cell] > h[cell]) {
+        f[cell] -= 1 + random.nextInt(f[cell] - h[cell]);
+        open.decreaseKey(cell, f[cell], h[cell]);
+      } else if (action == 2 && size > 0) {
+        int expected = -1;
+        for (int i = 0; i < cells; ++i) {
+          if (queued[i]
+              && (expected < 0 || f[i] < f[expected] || (f[i] == f[expected] && h[i] < h[expected]))) {
+            expected = i;
+          }
+        }
+        Assert.assertEquals(f[expected], open.minF());
+        Assert.assertEquals(expected, open.pop());
+        queued[expected] = false;
+        --size;
+      }
+      Assert.assertEquals(size, open.size());
+      Assert.assertEquals(queued[cell], open.contains(cell));
+    }
+    open.clear();
+    Assert.assertTrue(open.isEmpty());
+    for (int i = 0; i < cells; ++i) {
+      Assert.assertFalse(open.contains(i));
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package edu.uab.cis.search.maze;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class PathCacheTest {
+
+  @Test
+  public void testHitsAndMisses() {
+    Grid grid = new Grid(3, 4, Sets.newHashSet(new Square(1, 1), new Square(2, 2)));
+    Query query = new Query(new Square(2, 0), new Square(1, 3));
+    PathCache cache = new PathCache(10);
+    List<Square> expected = new Solver(grid, query).getPathFromStartToGoal();
+    Assert.assertEquals(expected, cache.getPath(grid, query));
+    Assert.assertEquals(expected, cache.getPath(grid, query));
+    Assert.assertEquals(expected, cache.getPath(grid, new Query(new Square(2, 0), new Square(1, 3))));
+    Assert.assertEquals(1, cache.getMisses());
+    Assert.assertEquals(2, cache.getHits());
+    Assert.assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEviction() {
+    Grid grid = new Grid(5, 5, Sets.<Square> newHashSet());
+    Query query1 = new Query(new Square(0, 0), new Square(4, 4));
+    Query query2 = new Query(new Square(0, 4), new Square(4, 0));
+    Query query3 = new Query(new Square(2, 2), new Square(0, 0));
+    PathCache cache = new PathCache(2);
+    cache.getPath(grid, query1);
+    cache.getPath(grid, query2);
+    // touch query1 so that query2 is the least recently used
+    cache.getPath(grid, query1);
+    cache.getPath(grid, query3);
+    Assert.assertEquals(2, cache.size());
+    Assert.assertEquals(1, cache.getEvictions());
+    long misses = cache.getMisses();
+    cache.getPath(grid, query1);
+    Assert.assertEquals(misses, cache.getMisses());
+    cache.getPath(grid, query2);
+    Assert.assertEquals(misses + 1, cache.getMisses());
+  }
+
+  @Test
+  public void testNewerGridVersionInvalidates() {
+    Grid grid = new Grid(3, 3, Sets.<Square> newHashSet());
+    Query query = new Query(new Square(0, 0), new Square(0, 2));
+    PathCache cache = new PathCache(10);
+    Assert.assertEquals(3, cache.getPath(grid, query).size());
+    cache.getPath(grid, new Query(new Square(2, 0), new Square(2, 2)));
+    Assert.assertEquals(2, cache.size());
+
+    // blocking the middle of the top row forces a detour
+    Grid blocked = grid.withBlocked(new Square(0, 1), true);
+    List<Square> path = cache.getPath(blocked, query);
+    Assert.assertEquals(5, path.size());
+    Assert.assertFalse(path.contains(new Square(0, 1)));
+    Assert.assertEquals(1, cache.size());
+
+    // paths for the old version are no longer kept
+    Assert.assertEquals(3, cache.getPath(grid, query).size());
+    Assert.assertEquals(1, cache.size());
+
+    cache.invalidate(blocked);
+    Assert.assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testFreshGridsAreForgotten() {
+    Query query = new Query(new Square(0, 0), new Square(2, 2));
+    PathCache cache = new PathCache(3);
+    for (int i = 0; i < 100; ++i) {
+      Grid grid = new Grid(3, 3, Sets.<Square> newHashSet());
+      Assert.assertEquals(5, cache.getPath(grid, query).size());
+      Assert.assertEquals(5, cache.getPath(grid, query).size());
+    }
+    Assert.assertEquals(3, cache.size());
+    Assert.assertEquals(97, cache.getEvictions());
+    // only the lineages whose paths are still cached are remembered
+    Assert.assertEquals(3, cache.lineageCount());
+  }
+
+  @Test
+  public void testStoppedSearchesAreNotCached() {
+    Grid grid = new Grid(5, 5, Sets.<Square> newHashSet());
+    Query query = new Query(new Square(0, 0), new Square(4, 4));
+    PathCache cache = new PathCache(10, new SolverOptions().maxExpansions(3));
+    Assert.assertTrue(cache.getPath(grid, query).isEmpty());
+    Assert.assertEquals(0, cache.size());
+    Assert.assertEquals(0, cache.lineageCount());
+    // a query the budget is enough for is cached as usual
+    Query near = new Query(new Square(0, 0), new Square(0, 1));
+    Assert.assertEquals(2, cache.getPath(grid, near).size());
+    Assert.assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void testCompactPathRoundTrip() {
+    List<Square> path = Lists.newArrayList(new Square(2, 0), new Square(1, 0), new Square(0, 0), new Square(0, 1),
+        new Square(1, 1), new Square(1, 0));
+    for (int i = 0; i < 40; ++i) {
+      Square last = path.get(path.size() - 1);
+      path.add(new Square(last.getRow() + i % 2, last.getColumn() + (i + 1) % 2));
+    }
+    CompactPath compact = CompactPath.of(path);
+    Assert.assertEquals(path.size(), compact.size());
+    Assert.assertEquals(path, compact.toList());
+    Assert.assertTrue(CompactPath.of(Lists.<Square> newArrayList()).toList().isEmpty());
+  }
+}
@@ -1,8 +1,14 @@
 package edu.uab.cis.search.maze;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -783,5 +789,598 @@ public class SolverTest {
     expectedExplored.addAll(expectedPath);
     Assert.assertEquals(expectedExplored, explored);
   }
-  
+
+  @Test(timeout = 10000)
+  public void testIndexedEngineMatchesNodeEngine() {
+    Random random = new Random(42);
+    for (int trial = 0; trial < 200; ++trial) {
+      Maze maze = randomMaze(random, 1 + random.nextInt(20), 1 + random.nextInt(20), 0.3);
+      if (maze == null) {
+        continue;
+      }
+      Solver expected = new Solver(maze, Solver.Engine.NODE);
+      Solver actual = new Solver(maze, Solver.Engine.INDEXED);
+      Assert.assertEquals(maze.toString(), expected.getPathFromStartToGoal(), actual.getPathFromStartToGoal());
+      Assert.assertEquals(maze.toString(), expected.getExploredSquares(), actual.getExploredSquares());
+      Assert.assertEquals(maze.toString(), expected.getDuplicatesAvoided(), actual.getDuplicatesAvoided());
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testBucketOpenListMatchesNodeEngine() {
+    Random random = new Random(7);
+    SolverOptions options = new SolverOptions().engine(Solver.Engine.INDEXED).openList(Solver.OpenListType.BUCKET);
+    for (int trial = 0; trial < 200; ++trial) {
+      Maze maze = randomMaze(random, 1 + random.nextInt(30), 1 + random.nextInt(30), 0.25);
+      if (maze == null) {
+        continue;
+      }
+      Solver expected = new Solver(maze);
+      Solver actual = new Solver(maze, options);
+      Assert.assertEquals(maze.toString(), expected.getPathFromStartToGoal(), actual.getPathFromStartToGoal());
+      Assert.assertEquals(maze.toString(), expected.getExploredSquares(), actual.getExploredSquares());
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testGridAndQuery() {
+    Random random = new Random(17);
+    Maze maze = null;
+    while (maze == null) {
+      maze = randomMaze(random, 12, 15, 0.3);
+    }
+    Grid grid = maze.getGrid();
+    Query query = new Query(maze.getStart(), maze.getGoal());
+    Solver expected = new Solver(maze);
+    Solver actual = new Solver(grid, query);
+    Assert.assertEquals(expected.getPathFromStartToGoal(), actual.getPathFromStartToGoal());
+    Assert.assertEquals(expected.getExploredSquares(), actual.getExploredSquares());
+    actual = new Solver(grid, query, new SolverOptions().engine(Solver.Engine.INDEXED));
+    Assert.assertEquals(expected.getPathFromStartToGoal(), actual.getPathFromStartToGoal());
+  }
+
+  @Test(timeout = 10000)
+  public void testDuplicatesAvoided() {
+    // @formatter:off
+    String mazeString = 
+      "######\n" +
+      "#S   #\n" +
+      "#    #\n" +
+      "#   G#\n" +
+      "######\n";
+    // @formatter:on
+    Maze maze = new Maze(3, 4, new Square(0, 0), new Square(2, 3), Sets.<Square> newHashSet());
+    Assert.assertEquals(mazeString, maze.toString());
+    for (Solver.Engine engine : new Solver.Engine[] { Solver.Engine.NODE, Solver.Engine.INDEXED }) {
+      Solver solver = new Solver(maze, engine);
+      // every square between start and goal has f = 5, so squares reached from
+      // both the left and above are found twice but must be queued only once
+      Assert.assertEquals(6, solver.getPathFromStartToGoal().size());
+      Assert.assertTrue(solver.getDuplicatesAvoided() > 0);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testDuplicatesAvoidedWithReplacement() {
+    // @formatter:off
+    String mazeString = 
+      "#######\n" +
+      "#G#   #\n" +
+      "#    S#\n" +
+      "#######\n";
+    // @formatter:on
+    Maze maze = new Maze(2, 5, new Square(1, 4), new Square(0, 0), Sets.newHashSet(new Square(0, 1)));
+    Assert.assertEquals(mazeString, maze.toString());
+    Solver optimal = new Solver(maze);
+    Solver anytime = new Solver(maze, new SolverOptions().anytime(1, TimeUnit.MINUTES));
+    Solver indexed = new Solver(maze, Solver.Engine.INDEXED);
+    // a queued square is reached again by a cheaper path, which the node
+    // engines queue anew and the indexed engine updates in place
+    Assert.assertEquals(indexed.getStats().getNodesPushed() + 1, optimal.getStats().getNodesPushed());
+    Assert.assertEquals(indexed.getStats().getNodesPushed() + 1, anytime.getStats().getNodesPushed());
+    // only the square reached again by a path that is no cheaper counts
+    Assert.assertEquals(1, optimal.getDuplicatesAvoided());
+    Assert.assertEquals(1, anytime.getDuplicatesAvoided());
+    Assert.assertEquals(1, indexed.getDuplicatesAvoided());
+    Assert.assertEquals(optimal.getPathFromStartToGoal(), anytime.getPathFromStartToGoal());
+  }
+
+  @Test(timeout = 10000)
+  public void testStats() {
+    Random random = new Random(31);
+    for (int trial = 0; trial < 50; ++trial) {
+      Maze maze = randomMaze(random, 20, 20, 0.3);
+      if (maze == null) {
+        continue;
+      }
+      SearchStats node = new Solver(maze).getStats();
+      SearchStats indexed = new Solver(maze, Solver.Engine.INDEXED).getStats();
+      Assert.assertEquals(Solver.Engine.NODE, node.getEngine());
+      Assert.assertEquals(node.getNodesExpanded(), indexed.getNodesExpanded());
+      Assert.assertEquals(node.getDuplicatePushes(), indexed.getDuplicatePushes());
+      Assert.assertEquals(-1, node.getWallNanos());
+      for (Solver.Engine engine : Solver.Engine.values()) {
+        SearchStats stats = new Solver(maze, engine).getStats();
+        Assert.assertTrue(stats.getNodesExpanded() > 0);
+        Assert.assertTrue(stats.getNodesPushed() >= stats.getMaxOpenSize());
+        Assert.assertTrue(stats.getMaxOpenSize() > 0);
+        Assert.assertTrue(stats.getHeuristicEvaluations() >= stats.getNodesPushed() - 1);
+      }
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testRecordExplored() {
+    Random random = new Random(17);
+    for (int trial = 0; trial < 50; ++trial) {
+      Maze maze = randomMaze(random, 15, 25, 0.3);
+      if (maze == null) {
+        continue;
+      }
+      for (Solver.Engine engine : Solver.Engine.values()) {
+        Solver recorded = new Solver(maze, engine);
+        Set<Square> explored = recorded.getExploredSquares();
+        Set<Square> copy = new HashSet<>(explored);
+        Assert.assertEquals(copy.size(), explored.size());
+        Assert.assertEquals(copy, explored);
+        Assert.assertFalse(explored.contains(new Square(-1, 0)));
+        Assert.assertFalse(explored.contains(new Square(maze.getRows(), 0)));
+
+        SolverOptions options = new SolverOptions().engine(engine).recordExplored(false);
+        Solver unrecorded = new Solver(maze, options);
+        Assert.assertEquals(recorded.getPathFromStartToGoal(), unrecorded.getPathFromStartToGoal());
+        Assert.assertTrue(unrecorded.getExploredSquares().isEmpty());
+      }
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testUnreachableGoal() {
+    // a wall down column 3 cuts the goal off from the start
+    Set<Square> wall = new HashSet<>();
+    for (int row = 0; row < 6; ++row) {
+      wall.add(new Square(row, 3));
+    }
+    for (Solver.Engine engine : Solver.Engine.values()) {
+      // by default, a grid whose regions are not labeled is searched, and the
+      // engines exhaust the start's region
+      Maze maze = new Maze(new Grid(6, 7, wall), new Square(2, 0), new Square(4, 6));
+      Solver searched = new Solver(maze, engine);
+      Assert.assertTrue(searched.getPathFromStartToGoal().isEmpty());
+      Assert.assertTrue(searched.getStats().getNodesExpanded() > 0);
+      Assert.assertFalse(maze.getGrid().hasComponents());
+
+      Solver rejected = new Solver(maze, new SolverOptions().engine(engine).checkReachability(true));
+      Assert.assertTrue(rejected.getPathFromStartToGoal().isEmpty());
+      Assert.assertTrue(rejected.getExploredSquares().isEmpty());
+      Assert.assertEquals(0, rejected.getStats().getNodesExpanded());
+
+      // once labeled, the regions are used, and kept for newer versions
+      Grid changed = maze.getGrid().withBlocked(new Square(0, 0), true);
+      rejected = new Solver(new Maze(changed, maze.getQuery()), engine);
+      Assert.assertEquals(0, rejected.getStats().getNodesExpanded());
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testCellCosts() {
+    Random random = new Random(41);
+    for (int trial = 0; trial < 40; ++trial) {
+      Maze maze = randomMaze(random, 1 + random.nextInt(15), 1 + random.nextInt(15), 0.25);
+      if (maze == null) {
+        continue;
+      }
+      int[] costs = new int[maze.getRows() * maze.getColumns()];
+      for (int i = 0; i < costs.length; ++i) {
+        costs[i] = 2 + random.nextInt(8);
+      }
+      CellCosts cellCosts = new CellCosts(maze.getRows(), maze.getColumns(), costs);
+      int cheapest = cheapestCost(maze, costs);
+      for (Solver.OpenListType openList : Solver.OpenListType.values()) {
+        SolverOptions options = new SolverOptions().edgeCost(cellCosts).openList(openList);
+        List<Square> node = new Solver(maze, options).getPathFromStartToGoal();
+        List<Square> indexed = new Solver(maze, options.engine(Solver.Engine.INDEXED)).getPathFromStartToGoal();
+        assertValidPath(maze, node);
+        Assert.assertEquals(node, indexed);
+        Assert.assertEquals(cheapest, pathCost(maze, node, costs));
+      }
+
+      // a heuristic that knows nothing still finds the cheapest path
+      Heuristic zero = new Heuristic() {
+        @Override
+        public int estimate(int row, int column, int goalRow, int goalColumn) {
+          return 0;
+        }
+      };
+      SolverOptions options = new SolverOptions().edgeCost(cellCosts).heuristic(zero);
+      List<Square> path = new Solver(maze, options).getPathFromStartToGoal();
+      Assert.assertEquals(cheapest, pathCost(maze, path, costs));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEdgeCostNeedsAStarEngine() {
+    Maze maze = new Maze(3, 3, new Square(0, 0), new Square(2, 2), Sets.<Square> newHashSet());
+    CellCosts costs = new CellCosts(3, 3, new int[] { 1, 1, 1, 1, 5, 1, 1, 1, 1 });
+    new Solver(maze, new SolverOptions().engine(Solver.Engine.JUMP_POINT).edgeCost(costs));
+  }
+
+  @Test(timeout = 10000)
+  public void testWeighted() {
+    Random random = new Random(43);
+    for (int trial = 0; trial < 40; ++trial) {
+      Maze maze = randomMaze(random, 5 + random.nextInt(30), 5 + random.nextInt(30), 0.25);
+      if (maze == null) {
+        continue;
+      }
+      int optimal = new Solver(maze).getPathFromStartToGoal().size();
+      double weight = 1 + random.nextInt(4) * 0.5;
+      SolverOptions options = new SolverOptions().weight(weight);
+      Solver node = new Solver(maze, options);
+      Solver indexed = new Solver(maze, options.engine(Solver.Engine.INDEXED));
+      assertValidPath(maze, node.getPathFromStartToGoal());
+      Assert.assertEquals(node.getPathFromStartToGoal(), indexed.getPathFromStartToGoal());
+      Assert.assertEquals(weight, node.getSuboptimalityBound(), 0);
+      Assert.assertTrue(node.getPathFromStartToGoal().size() - 1 <= weight * (optimal - 1));
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testAnytime() {
+    Random random = new Random(47);
+    for (int trial = 0; trial < 40; ++trial) {
+      Maze maze = randomMaze(random, 5 + random.nextInt(30), 5 + random.nextInt(30), 0.25);
+      if (maze == null) {
+        continue;
+      }
+      int optimal = new Solver(maze).getPathFromStartToGoal().size() - 1;
+
+      // with no time to improve, the first path comes with its proven bound
+      SolverOptions options = new SolverOptions().weight(3).anytime(0, TimeUnit.NANOSECONDS);
+      Solver first = new Solver(maze, options);
+      List<Square> path = first.getPathFromStartToGoal();
+      assertValidPath(maze, path);
+      Assert.assertTrue(first.getSuboptimalityBound() >= 1);
+      Assert.assertTrue(first.getSuboptimalityBound() <= 3);
+      Assert.assertTrue(path.size() - 1 <= first.getSuboptimalityBound() * optimal + 1e-9);
+
+      // with time to spare, the search improves its path until it is optimal
+      options.anytime(1, TimeUnit.MINUTES).weightDecrement(0.3);
+      Solver last = new Solver(maze, options);
+      assertValidPath(maze, last.getPathFromStartToGoal());
+      Assert.assertEquals(1, last.getSuboptimalityBound(), 0);
+      Assert.assertEquals(optimal, last.getPathFromStartToGoal().size() - 1);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAnytimeNeedsNodeEngine() {
+    Maze maze = new Maze(3, 3, new Square(0, 0), new Square(2, 2), Sets.<Square> newHashSet());
+    new Solver(maze, new SolverOptions().engine(Solver.Engine.INDEXED).anytime(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testExpansionLimit() {
+    Maze maze = new Maze(20, 20, new Square(0, 0), new Square(19, 19), Sets.<Square> newHashSet());
+    int startH = 38;
+    for (Solver.Engine engine : Solver.Engine.values()) {
+      // jump point search crosses an open field in a few expansions
+      Solver solver = new Solver(maze, new SolverOptions().engine(engine).maxExpansions(2));
+      Assert.assertEquals(Solver.Termination.EXPANSION_LIMIT, solver.getTermination());
+      Assert.assertTrue(solver.getPathFromStartToGoal().isEmpty());
+      Assert.assertTrue(solver.getStats().getNodesExpanded() <= 2);
+      List<Square> partial = solver.getPartialPath();
+      // the partial path leads from the start toward the goal
+      Square last = partial.get(partial.size() - 1);
+      assertValidPath(new Maze(maze.getGrid(), maze.getStart(), last), partial);
+      Assert.assertTrue(Math.abs(19 - last.getRow()) + Math.abs(19 - last.getColumn()) < startH);
+
+      // a budget the search does not use up changes nothing
+      Solver unlimited = new Solver(maze, engine);
+      solver = new Solver(maze, new SolverOptions().engine(engine).maxExpansions(10000));
+      Assert.assertEquals(Solver.Termination.COMPLETED, solver.getTermination());
+      Assert.assertEquals(unlimited.getPathFromStartToGoal(), solver.getPathFromStartToGoal());
+      Assert.assertEquals(solver.getPathFromStartToGoal(), solver.getPartialPath());
+    }
+
+    // a budget that stops the first anytime search leaves only a partial path
+    SolverOptions options = new SolverOptions().weight(2).anytime(1, TimeUnit.MINUTES).maxExpansions(5);
+    Solver anytime = new Solver(maze, options);
+    Assert.assertEquals(Solver.Termination.EXPANSION_LIMIT, anytime.getTermination());
+    Assert.assertTrue(anytime.getPathFromStartToGoal().isEmpty());
+    Assert.assertFalse(anytime.getPartialPath().isEmpty());
+    Assert.assertEquals(maze.getStart(), anytime.getPartialPath().get(0));
+  }
+
+  @Test(timeout = 10000)
+  public void testBidirectionalPartialPath() {
+    Random random = new Random(5);
+    boolean met = false;
+    for (int trial = 0; trial < 40; ++trial) {
+      Maze maze = randomMaze(random, 3 + random.nextInt(10), 3 + random.nextInt(10), 0.3);
+      if (maze == null) {
+        continue;
+      }
+      int optimal = new Solver(maze).getPathFromStartToGoal().size();
+      for (int budget = 1;; ++budget) {
+        SolverOptions options = new SolverOptions().engine(Solver.Engine.BIDIRECTIONAL).maxExpansions(budget);
+        Solver solver = new Solver(maze, options);
+        if (solver.getTermination() == Solver.Termination.COMPLETED) {
+          Assert.assertEquals(optimal, solver.getPathFromStartToGoal().size());
+          break;
+        }
+        Assert.assertTrue(solver.getPathFromStartToGoal().isEmpty());
+        // before the searches meet, the partial path leads forward toward the
+        // goal; after, it is the path through the square where they met
+        List<Square> partial = solver.getPartialPath();
+        Square last = partial.get(partial.size() - 1);
+        assertValidPath(new Maze(maze.getGrid(), maze.getStart(), last), partial);
+        met |= last.equals(maze.getGoal());
+      }
+    }
+    Assert.assertTrue(met);
+  }
+
+  @Test
+  public void testCancelledAndDeadline() {
+    Maze maze = new Maze(30, 30, new Square(0, 0), new Square(29, 29), Sets.<Square> newHashSet());
+    CancellationToken token = new CancellationToken();
+    Assert.assertFalse(token.isCancelled());
+    Assert.assertEquals(
+        Solver.Termination.COMPLETED,
+        new Solver(maze, new SolverOptions().cancellationToken(token)).getTermination());
+    token.cancel();
+    Assert.assertTrue(token.isCancelled());
+    for (Solver.Engine engine : Solver.Engine.values()) {
+      // the token and the clock are checked before the first expansion
+      Solver cancelled = new Solver(maze, new SolverOptions().engine(engine).cancellationToken(token));
+      Assert.assertEquals(Solver.Termination.CANCELLED, cancelled.getTermination());
+      Assert.assertTrue(cancelled.getPathFromStartToGoal().isEmpty());
+      Assert.assertEquals(0, cancelled.getStats().getNodesExpanded());
+
+      Solver late = new Solver(maze, new SolverOptions().engine(engine).deadline(0, TimeUnit.NANOSECONDS));
+      Assert.assertEquals(Solver.Termination.DEADLINE, late.getTermination());
+      Assert.assertTrue(late.getPathFromStartToGoal().isEmpty());
+
+      Solver timely = new Solver(maze, new SolverOptions().engine(engine).deadline(1, TimeUnit.MINUTES));
+      Assert.assertEquals(Solver.Termination.COMPLETED, timely.getTermination());
+      Assert.assertEquals(59, timely.getPathFromStartToGoal().size());
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testMetricsListener() {
+    final List<String> recorded = new ArrayList<>();
+    MetricsRegistry registry = new MetricsRegistry() {
+      @Override
+      public void count(String name, long amount, String... tags) {
+        recorded.add(name + "=" + amount + " " + tags[1]);
+      }
+
+      @Override
+      public void record(String name, long value, String... tags) {
+        recorded.add(name);
+      }
+
+      @Override
+      public void recordNanos(String name, long nanos, String... tags) {
+        Assert.assertTrue(nanos >= 0);
+        recorded.add(name);
+      }
+    };
+    final List<SearchStats> heard = new ArrayList<>();
+    SolverOptions options = new SolverOptions().engine(Solver.Engine.INDEXED);
+    options.listener(new MetricsListener(registry)).listener(new SearchListener() {
+      @Override
+      public void searchCompleted(Maze maze, SearchStats stats) {
+        heard.add(stats);
+      }
+    });
+    Maze maze = new Maze(3, 4, new Square(0, 0), new Square(2, 3), Sets.<Square> newHashSet());
+    Solver solver = new Solver(maze, options);
+    Assert.assertEquals(1, heard.size());
+    Assert.assertSame(solver.getStats(), heard.get(0));
+    Assert.assertTrue(heard.get(0).getWallNanos() >= 0);
+    Assert.assertTrue(recorded.contains("maze.search.solves=1 indexed"));
+    Assert.assertTrue(recorded.contains("maze.search.expanded"));
+    Assert.assertTrue(recorded.contains("maze.search.time"));
+  }
+
+  @Test(timeout = 10000)
+  public void testJumpPointOpenField() {
+    Maze maze = new Maze(50, 60, new Square(3, 2), new Square(45, 57), Sets.<Square> newHashSet());
+    Solver aStar = new Solver(maze);
+    Solver jumpPoint = new Solver(maze, Solver.Engine.JUMP_POINT);
+    List<Square> path = jumpPoint.getPathFromStartToGoal();
+    assertValidPath(maze, path);
+    Assert.assertEquals(aStar.getPathFromStartToGoal().size(), path.size());
+    Assert.assertTrue(jumpPoint.getExploredSquares().containsAll(path));
+    // only the start and the goal are jump points, so nothing off the path
+    Assert.assertEquals(Sets.newHashSet(path), jumpPoint.getExploredSquares());
+  }
+
+  @Test(timeout = 10000)
+  public void testJumpPointMatchesPathLength() {
+    Random random = new Random(11);
+    for (int trial = 0; trial < 500; ++trial) {
+      double density = 0.1 * random.nextInt(5);
+      Maze maze = randomMaze(random, 1 + random.nextInt(25), 1 + random.nextInt(25), density);
+      if (maze == null) {
+        continue;
+      }
+      Solver expected = new Solver(maze, Solver.Engine.INDEXED);
+      Solver actual = new Solver(maze, Solver.Engine.JUMP_POINT);
+      List<Square> path = actual.getPathFromStartToGoal();
+      assertValidPath(maze, path);
+      Assert.assertEquals(maze.toString(), expected.getPathFromStartToGoal().size(), path.size());
+      Assert.assertTrue(actual.getExploredSquares().containsAll(path));
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testJumpPointWideRows() {
+    // rows several 64-column chunks wide, searched on shared buffers so that
+    // remembered scans from earlier searches must not leak into later ones
+    Random random = new Random(13);
+    SearchBuffers buffers = new SearchBuffers();
+    SolverOptions options = new SolverOptions().engine(Solver.Engine.JUMP_POINT);
+    for (int trial = 0; trial < 200; ++trial) {
+      double density = 0.02 * random.nextInt(6);
+      Maze maze = randomMaze(random, 1 + random.nextInt(12), 60 + random.nextInt(200), density);
+      if (maze == null) {
+        continue;
+      }
+      List<Square> path = new Solver(maze, options, buffers).getPathFromStartToGoal();
+      assertValidPath(maze, path);
+      Assert.assertEquals(new Solver(maze, Solver.Engine.INDEXED).getPathFromStartToGoal().size(), path.size());
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testBidirectionalMatchesPathLength() {
+    Random random = new Random(13);
+    for (int trial = 0; trial < 500; ++trial) {
+      double density = 0.1 * random.nextInt(5);
+      Maze maze = randomMaze(random, 1 + random.nextInt(25), 1 + random.nextInt(25), density);
+      if (maze == null) {
+        continue;
+      }
+      Solver expected = new Solver(maze, Solver.Engine.INDEXED);
+      Solver actual = new Solver(maze, Solver.Engine.BIDIRECTIONAL);
+      List<Square> path = actual.getPathFromStartToGoal();
+      assertValidPath(maze, path);
+      Assert.assertEquals(maze.toString(), expected.getPathFromStartToGoal().size(), path.size());
+      Set<Square> explored = actual.getExploredSquares();
+      Assert.assertTrue(explored.containsAll(path));
+      Assert.assertTrue(explored.containsAll(actual.getForwardExploredSquares()));
+      Assert.assertTrue(explored.containsAll(actual.getBackwardExploredSquares()));
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testBidirectionalExploresBothDirections() {
+    // @formatter:off
+    String mazeString = 
+      "#########\n" +
+      "#S      #\n" +
+      "####### #\n" +
+      "#G      #\n" +
+      "#########\n";
+    // @formatter:on
+    Set<Square> obstacles = new HashSet<>();
+    for (int column = 0; column < 6; ++column) {
+      obstacles.add(new Square(1, column));
+    }
+    Maze maze = new Maze(3, 7, new Square(0, 0), new Square(2, 0), obstacles);
+    Assert.assertEquals(mazeString, maze.toString());
+    Solver solver = new Solver(maze, Solver.Engine.BIDIRECTIONAL);
+    Assert.assertEquals(15, solver.getPathFromStartToGoal().size());
+    Assert.assertTrue(solver.getForwardExploredSquares().contains(new Square(0, 0)));
+    Assert.assertTrue(solver.getBackwardExploredSquares().contains(new Square(2, 0)));
+    Assert.assertFalse(solver.getForwardExploredSquares().contains(new Square(2, 0)));
+    Assert.assertFalse(solver.getBackwardExploredSquares().contains(new Square(0, 0)));
+    // other engines search in one direction only
+    Solver aStar = new Solver(maze);
+    Assert.assertEquals(aStar.getExploredSquares(), aStar.getForwardExploredSquares());
+    Assert.assertTrue(aStar.getBackwardExploredSquares().isEmpty());
+  }
+
+  /**
+   * Checks that the path runs from the start to the goal through adjacent,
+   * unblocked squares.
+   */
+  static void assertValidPath(Maze maze, List<Square> path) {
+    Assert.assertEquals(maze.getStart(), path.get(0));
+    Assert.assertEquals(maze.getGoal(), path.get(path.size() - 1));
+    for (int i = 0; i < path.size(); ++i) {
+      Square square = path.get(i);
+      Assert.assertFalse(maze.isBlocked(square));
+      if (i > 0) {
+        Square previous = path.get(i - 1);
+        int distance = Math.abs(square.getRow() - previous.getRow())
+            + Math.abs(square.getColumn() - previous.getColumn());
+        Assert.assertEquals(1, distance);
+      }
+    }
+  }
+
+  /**
+   * @return The total cost of the steps of a path, each costing the cost of
+   *         the square stepped onto.
+   */
+  private static int pathCost(Maze maze, List<Square> path, int[] costs) {
+    int total = 0;
+    for (int i = 1; i < path.size(); ++i) {
+      total += costs[path.get(i).getRow() * maze.getColumns() + path.get(i).getColumn()];
+    }
+    return total;
+  }
+
+  /**
+   * @return The cost of the cheapest path from the start to the goal, by a
+   *         plain quadratic Dijkstra.
+   */
+  private static int cheapestCost(Maze maze, int[] costs) {
+    int columns = maze.getColumns();
+    int[] best = new int[costs.length];
+    boolean[] done = new boolean[costs.length];
+    Arrays.fill(best, Integer.MAX_VALUE);
+    best[maze.getStart().getRow() * columns + maze.getStart().getColumn()] = 0;
+    while (true) {
+      int cell = -1;
+      for (int i = 0; i < costs.length; ++i) {
+        if (!done[i] && best[i] != Integer.MAX_VALUE && (cell < 0 || best[i] < best[cell])) {
+          cell = i;
+        }
+      }
+      if (cell < 0) {
+        break;
+      }
+      done[cell] = true;
+      int[][] moves = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+      for (int[] move : moves) {
+        int row = cell / columns + move[0];
+        int column = cell % columns + move[1];
+        if (!maze.isBlocked(new Square(row, column))) {
+          int next = row * columns + column;
+          best[next] = Math.min(best[next], best[cell] + costs[next]);
+        }
+      }
+    }
+    return best[maze.getGoal().getRow() * columns + maze.getGoal().getColumn()];
+  }
+
+  /**
+   * Creates a random maze whose goal is reachable from its start, or returns
+   * null if the random layout has no such path.
+   */
+  static Maze randomMaze(Random random, int rows, int columns, double density) {
+    Set<Square> obstacles = new HashSet<>();
+    for (int row = 0; row < rows; ++row) {
+      for (int column = 0; column < columns; ++column) {
+        if (random.nextDouble() < density) {
+          obstacles.add(new Square(row, column));
+        }
+      }
+    }
+    Square start = new Square(random.nextInt(rows), random.nextInt(columns));
+    Square goal = new Square(random.nextInt(rows), random.nextInt(columns));
+    obstacles.remove(start);
+    obstacles.remove(goal);
+    Maze maze = new Maze(rows, columns, start, goal, obstacles);
+    // flood fill from the start to make sure the goal is reachable
+    Set<Square> reached = Sets.newHashSet(start);
+    Deque<Square> queue = new ArrayDeque<>(reached);
+    while (!queue.isEmpty()) {
+      Square square = queue.poll();
+      int[][] moves = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+      for (int[] move : moves) {
+        Square next = new Square(square.getRow() + move[0], square.getColumn() + move[1]);
+        if (!maze.isBlocked(next) && reached.add(next)) {
+          queue.add(next);
+        }
+      }
+    }
+    return reached.contains(goal) ? maze : null;
+  }
 }
@@ -1,5 +1,8 @@
 package edu.uab.cis.search.maze;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -22,4 +25,39 @@ public class SquareTest {
     Assert.assertNotEquals(square1, new Square(7, 2));
     Assert.assertNotEquals(square1, new Square(6, 3));
   }
+
+  @Test
+  public void testHashSpread() {
+    // every square of a 1000 x 1000 grid gets its own hash, and the low bits
+    // used by small hash tables are evenly spread
+    Set<Integer> hashes = new HashSet<>();
+    int[] buckets = new int[1024];
+    for (int row = 0; row < 1000; ++row) {
+      for (int column = 0; column < 1000; ++column) {
+        int hash = new Square(row, column).hashCode();
+        hashes.add(hash);
+        ++buckets[hash & 1023];
+      }
+    }
+    Assert.assertEquals(1000 * 1000, hashes.size());
+    for (int count : buckets) {
+      Assert.assertTrue(count > 800 && count < 1200);
+    }
+  }
+
+  @Test
+  public void testSquareCache() {
+    Grid grid = new Grid(3, 4, new HashSet<Square>());
+    SquareCache cache = new SquareCache(grid);
+    Square square = cache.get(2, 3);
+    Assert.assertEquals(new Square(2, 3), square);
+    Assert.assertSame(square, cache.get(2, 3));
+    Assert.assertSame(square, cache.get(new Square(2, 3)));
+    Assert.assertNotSame(cache.get(3, 3), cache.get(3, 3));
+    Assert.assertEquals(new Square(-1, 0), cache.get(-1, 0));
+
+    Maze maze = new Maze(grid, new Square(0, 0), new Square(2, 3));
+    Solver solver = new Solver(maze, new SolverOptions().squareCache(cache));
+    Assert.assertEquals(new Solver(maze).getPathFromStartToGoal(), solver.getPathFromStartToGoal());
+  }
 }